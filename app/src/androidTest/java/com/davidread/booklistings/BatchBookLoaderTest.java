@@ -0,0 +1,164 @@
+package com.davidread.booklistings;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link BatchBookLoader} against a local {@link FakeBooksServer}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BatchBookLoaderTest {
+
+    /**
+     * int specifying the number of results per page of every query term.
+     */
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * {@link FakeBooksServer} serving the results.
+     */
+    private FakeBooksServer fakeBooksServer;
+
+    /**
+     * {@link Context} the loaders run in.
+     */
+    private Context context;
+
+    /**
+     * Starts the {@link FakeBooksServer}, points {@link BookLoader} at it and clears the
+     * {@link BookCache} so every page is fetched.
+     */
+    @Before
+    public void setUp() throws Exception {
+        fakeBooksServer = new FakeBooksServer();
+        BookLoader.setBookSource(new GoogleBooksSource("fake", fakeBooksServer.getBaseUrl()));
+        context = ApplicationProvider.getApplicationContext();
+        new BookCache(context).clear();
+    }
+
+    /**
+     * Shuts the {@link FakeBooksServer} down and points {@link BookLoader} back at the configured
+     * sources.
+     */
+    @After
+    public void tearDown() throws Exception {
+        fakeBooksServer.shutdown();
+        BookLoader.setBookSource(BookLoader.createDefaultBookSource());
+    }
+
+    /**
+     * Repeated query terms are searched once, and every result is tagged with its query term.
+     */
+    @Test
+    public void mergesAndTagsEveryQuery() {
+        List<Book> books = new BatchBookLoader(context, "android; kotlin; Android", 0, PAGE_SIZE, Collections.<String>emptyList()).loadInBackground();
+
+        assertEquals(2 * PAGE_SIZE, books.size());
+        assertEquals(2, fakeBooksServer.getRequestCount());
+        int androidCount = 0;
+        for (Book book : books) {
+            assertTrue(book.getSourceQuery().equals("android") || book.getSourceQuery().equals("kotlin"));
+            androidCount += book.getSourceQuery().equals("android") ? 1 : 0;
+        }
+        assertEquals(PAGE_SIZE, androidCount);
+    }
+
+    /**
+     * Results shown on earlier pages are left out.
+     */
+    @Test
+    public void leavesOutExcludedBooks() {
+        List<String> excludedBookKeys = new ArrayList<>();
+        for (Book book : BookLoader.loadPage(context, "android", 0, PAGE_SIZE, null)) {
+            excludedBookKeys.add(BatchBookLoader.getBookKey(book));
+        }
+
+        List<Book> books = new BatchBookLoader(context, "android; kotlin", 0, PAGE_SIZE, excludedBookKeys).loadInBackground();
+
+        assertEquals(PAGE_SIZE, books.size());
+        for (Book book : books) {
+            assertEquals("kotlin", book.getSourceQuery());
+        }
+    }
+
+    /**
+     * A shown page reloaded after its cache entry expired comes back with the same results, since
+     * only the results of earlier pages are left out, not its own or those of later pages.
+     */
+    @Test
+    public void reloadsShownPageWithSameBooks() {
+        String query = "android; kotlin";
+        List<String> firstPageBookKeys = getBookKeys(new BatchBookLoader(context, query, 0, PAGE_SIZE, Collections.<String>emptyList()).loadInBackground());
+        List<String> secondPageBookKeys = getBookKeys(new BatchBookLoader(context, query, PAGE_SIZE, PAGE_SIZE, firstPageBookKeys).loadInBackground());
+        new BookCache(context).clear();
+
+        List<String> reloadedBookKeys = getBookKeys(new BatchBookLoader(context, query, 0, PAGE_SIZE, Collections.<String>emptyList()).loadInBackground());
+
+        assertEquals(2 * PAGE_SIZE, secondPageBookKeys.size());
+        assertEquals(new HashSet<>(firstPageBookKeys), new HashSet<>(reloadedBookKeys));
+        assertEquals(2 * PAGE_SIZE, reloadedBookKeys.size());
+    }
+
+    /**
+     * A merged page missing the results of a failed query term is returned but not cached, so
+     * the next load fetches the complete page.
+     */
+    @Test
+    public void doesNotCacheIncompletePage() {
+        fakeBooksServer.setFailingQuery("kotlin");
+        List<Book> incompleteBooks = new BatchBookLoader(context, "android; kotlin", 0, PAGE_SIZE, Collections.<String>emptyList()).loadInBackground();
+        fakeBooksServer.setFailingQuery(null);
+
+        List<Book> books = new BatchBookLoader(context, "android; kotlin", 0, PAGE_SIZE, Collections.<String>emptyList()).loadInBackground();
+
+        assertEquals(PAGE_SIZE, incompleteBooks.size());
+        assertEquals(2 * PAGE_SIZE, books.size());
+    }
+
+    /**
+     * Query terms are fetched concurrently, so a batch takes about as long as a single query
+     * term.
+     */
+    @Test
+    public void fetchesQueriesConcurrently() {
+        long latencyMillis = 1000;
+        fakeBooksServer.setLatencyMillis(latencyMillis);
+
+        long startTime = SystemClock.elapsedRealtime();
+        List<Book> books = new BatchBookLoader(context, "android; kotlin; java; swift", 0, PAGE_SIZE, Collections.<String>emptyList()).loadInBackground();
+        long elapsedMillis = SystemClock.elapsedRealtime() - startTime;
+
+        assertEquals(4 * PAGE_SIZE, books.size());
+        assertTrue("Batch took " + elapsedMillis + " ms", elapsedMillis < 2 * latencyMillis);
+    }
+
+    /**
+     * Returns the key of every {@link Book} object in the given {@link List}.
+     *
+     * @param books {@link List} of {@link Book} objects.
+     * @return {@link List} holding the key of every {@link Book} object, in the same order.
+     */
+    private static List<String> getBookKeys(List<Book> books) {
+        List<String> bookKeys = new ArrayList<>();
+        for (Book book : books) {
+            bookKeys.add(BatchBookLoader.getBookKey(book));
+        }
+        return bookKeys;
+    }
+}
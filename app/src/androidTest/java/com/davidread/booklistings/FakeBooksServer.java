@@ -0,0 +1,422 @@
+package com.davidread.booklistings;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link FakeBooksServer} is a local HTTP server that stands in for the Google Books API volumes
+ * search. It serves generated responses of realistic size, and can inject latency, limit bandwidth
+ * and fail a share of requests, so loading can be measured reproducibly on a device.
+ */
+public class FakeBooksServer {
+
+    /**
+     * {@link String} path the volumes search is served at.
+     */
+    private static final String VOLUMES_PATH = "/books/v1/volumes";
+
+    /**
+     * int specifying how many bytes are written at a time when bandwidth is limited.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * {@link ServerSocket} accepting connections.
+     */
+    private final ServerSocket serverSocket;
+
+    /**
+     * {@link ExecutorService} handling connections.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * {@link Random} deciding which requests fail.
+     */
+    private final Random errorRandom;
+
+    /**
+     * {@link AtomicInteger} counting the requests served.
+     */
+    private final AtomicInteger requestCount;
+
+    /**
+     * long specifying how many milliseconds pass before a response is started.
+     */
+    private volatile long latencyMillis;
+
+    /**
+     * long specifying how many response bytes are sent per second, or 0 for no limit.
+     */
+    private volatile long bytesPerSecond;
+
+    /**
+     * double specifying the share of requests answered with a server error.
+     */
+    private volatile double errorRate;
+
+    /**
+     * {@link String} query term whose requests are answered with a server error, or null.
+     */
+    private volatile String failingQuery;
+
+    /**
+     * Boolean representing whether successful responses are cut off halfway through their body.
+     */
+    private volatile boolean truncated;
+
+    /**
+     * int specifying how many results exist for every query term.
+     */
+    private volatile int totalResults;
+
+    /**
+     * Constructs and starts a new {@link FakeBooksServer} on a free local port.
+     */
+    public FakeBooksServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        this.executorService = Executors.newCachedThreadPool();
+        this.errorRandom = new Random(0);
+        this.requestCount = new AtomicInteger();
+        this.latencyMillis = 0;
+        this.bytesPerSecond = 0;
+        this.errorRate = 0;
+        this.failingQuery = null;
+        this.truncated = false;
+        this.totalResults = 1000;
+        executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                acceptConnections();
+            }
+        });
+    }
+
+    /**
+     * Returns the base URL of the volumes search served by this server.
+     *
+     * @return {@link String} base URL of the volumes search served by this server.
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + VOLUMES_PATH;
+    }
+
+    /**
+     * Returns the number of requests served so far.
+     *
+     * @return The number of requests served so far.
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Sets how many milliseconds pass before a response is started.
+     *
+     * @param latencyMillis long specifying the latency in milliseconds.
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Sets how many response bytes are sent per second.
+     *
+     * @param bytesPerSecond long specifying the bandwidth, or 0 for no limit.
+     */
+    public void setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Sets the share of requests answered with a server error.
+     *
+     * @param errorRate double between 0 and 1.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Sets the query term whose requests are answered with a server error, whatever the error
+     * rate.
+     *
+     * @param failingQuery {@link String} query term to fail, or null.
+     */
+    public void setFailingQuery(String failingQuery) {
+        this.failingQuery = failingQuery;
+    }
+
+    /**
+     * Sets whether successful responses are cut off halfway through their body, as if the
+     * connection dropped.
+     *
+     * @param truncated Boolean representing whether responses are cut off.
+     */
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    /**
+     * Sets how many results exist for every query term.
+     *
+     * @param totalResults int specifying the number of results.
+     */
+    public void setTotalResults(int totalResults) {
+        this.totalResults = totalResults;
+    }
+
+    /**
+     * Stops accepting connections and shuts the server down.
+     */
+    public void shutdown() throws IOException {
+        serverSocket.close();
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Accepts connections until the server socket is closed.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                executorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        handleConnection(socket);
+                    }
+                });
+            } catch (IOException e) {
+                // The server socket was closed.
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads one request from the given {@link Socket} and writes its response.
+     *
+     * @param socket {@link Socket} of the connection.
+     */
+    private void handleConnection(Socket socket) {
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String requestLine = reader.readLine();
+            String headerLine = reader.readLine();
+            while (headerLine != null && !headerLine.isEmpty()) {
+                headerLine = reader.readLine();
+            }
+            if (requestLine == null) {
+                return;
+            }
+            requestCount.incrementAndGet();
+
+            // Wait out the injected latency.
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+
+            // Answer with an error or the generated response.
+            String[] requestParts = requestLine.split(" ");
+            String target = requestParts.length > 1 ? requestParts[1] : "";
+            OutputStream outputStream = socket.getOutputStream();
+            Map<String, String> parameters = parseQueryParameters(target);
+            String query = parameters.containsKey("q") ? parameters.get("q") : "";
+            if (!target.startsWith(VOLUMES_PATH)) {
+                writeResponse(outputStream, 404, "Not Found", new byte[0]);
+            } else if (query.equals(failingQuery) || shouldFail()) {
+                writeResponse(outputStream, 503, "Service Unavailable", new byte[0]);
+            } else {
+                int startIndex = parseInt(parameters.get("startIndex"), 0);
+                int maxResults = parseInt(parameters.get("maxResults"), 10);
+                byte[] body = generateVolumes(query, startIndex, maxResults).getBytes(StandardCharsets.UTF_8);
+                writeResponse(outputStream, 200, "OK", body);
+            }
+        } catch (IOException | InterruptedException e) {
+            // The client went away or the server is shutting down.
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to clean up.
+            }
+        }
+    }
+
+    /**
+     * Returns whether the current request should be answered with a server error.
+     *
+     * @return Whether the current request should fail.
+     */
+    private boolean shouldFail() {
+        synchronized (errorRandom) {
+            return errorRandom.nextDouble() < errorRate;
+        }
+    }
+
+    /**
+     * Writes an HTTP response, throttling the body to the configured bandwidth. A successful
+     * response is cut off halfway through its body if responses are truncated.
+     *
+     * @param outputStream  {@link OutputStream} of the connection.
+     * @param statusCode    int HTTP status code.
+     * @param statusMessage {@link String} HTTP status message.
+     * @param body          byte array of the response body.
+     */
+    private void writeResponse(OutputStream outputStream, int statusCode, String statusMessage, byte[] body) throws IOException, InterruptedException {
+        String headers = "HTTP/1.1 " + statusCode + " " + statusMessage + "\r\n"
+                + "Content-Type: application/json; charset=UTF-8\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n\r\n";
+        outputStream.write(headers.getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
+
+        int bodyLength = truncated && statusCode == 200 ? body.length / 2 : body.length;
+        for (int offset = 0; offset < bodyLength; offset += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, bodyLength - offset);
+            outputStream.write(body, offset, length);
+            outputStream.flush();
+            long bandwidth = bytesPerSecond;
+            if (bandwidth > 0) {
+                Thread.sleep(length * 1000L / bandwidth);
+            }
+        }
+    }
+
+    /**
+     * Returns a volumes search response for the given page. Titles, authors and links are
+     * generated deterministically from the query term and result index, with lengths close to
+     * those of real responses.
+     *
+     * @param query      {@link String} query term.
+     * @param startIndex int index of the first result.
+     * @param maxResults int maximum number of results.
+     * @return {@link String} JSON volumes search response.
+     */
+    private String generateVolumes(String query, int startIndex, int maxResults) {
+        int endIndex = Math.min(totalResults, startIndex + maxResults);
+        if (startIndex >= endIndex) {
+            return "{\"totalItems\":" + totalResults + "}";
+        }
+
+        StringBuilder json = new StringBuilder("{\"totalItems\":").append(totalResults).append(",\"items\":[");
+        for (int index = startIndex; index < endIndex; index++) {
+            Random random = new Random(query.hashCode() * 31L + index);
+            if (index > startIndex) {
+                json.append(',');
+            }
+            json.append("{\"volumeInfo\":{\"title\":\"");
+            appendWords(json, capitalize(query), random, 1 + random.nextInt(10));
+            json.append("\",\"authors\":[");
+            int authorCount = 1 + random.nextInt(3);
+            for (int author = 0; author < authorCount; author++) {
+                if (author > 0) {
+                    json.append(',');
+                }
+                json.append('"');
+                appendWords(json, capitalize(randomWord(random)), random, 1);
+                json.append('"');
+            }
+            json.append("],\"infoLink\":\"http://books.google.com/books?id=")
+                    .append(Integer.toHexString(random.nextInt()))
+                    .append("&dq=").append(query.replace('"', ' ').replace('\\', ' ').replace(' ', '+'))
+                    .append("&hl=&source=gbs_api\"}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Appends the given first word and a number of generated words to the given
+     * {@link StringBuilder}.
+     *
+     * @param json      {@link StringBuilder} to append to.
+     * @param firstWord {@link String} first word.
+     * @param random    {@link Random} generating the words.
+     * @param wordCount int number of generated words.
+     */
+    private static void appendWords(StringBuilder json, String firstWord, Random random, int wordCount) {
+        json.append(firstWord.replace('"', ' ').replace('\\', ' '));
+        for (int word = 0; word < wordCount; word++) {
+            json.append(' ').append(randomWord(random));
+        }
+    }
+
+    /**
+     * Returns a generated lowercase word of 2 to 10 letters.
+     *
+     * @param random {@link Random} generating the word.
+     * @return {@link String} generated word.
+     */
+    private static String randomWord(Random random) {
+        char[] letters = new char[2 + random.nextInt(9)];
+        for (int index = 0; index < letters.length; index++) {
+            letters[index] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+
+    /**
+     * Returns the given word with its first letter in uppercase.
+     *
+     * @param word {@link String} word.
+     * @return {@link String} capitalized word.
+     */
+    private static String capitalize(String word) {
+        return word.isEmpty() ? word : word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1);
+    }
+
+    /**
+     * Returns the query parameters of the given request target.
+     *
+     * @param target {@link String} request target.
+     * @return {@link Map} of decoded query parameter names to values.
+     */
+    private static Map<String, String> parseQueryParameters(String target) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        int queryStart = target.indexOf('?');
+        if (queryStart < 0) {
+            return parameters;
+        }
+        for (String parameter : target.substring(queryStart + 1).split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                String name = URLDecoder.decode(parameter.substring(0, separator), "UTF-8");
+                String value = URLDecoder.decode(parameter.substring(separator + 1), "UTF-8");
+                parameters.put(name, value);
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Returns the given {@link String} as an int, or the given default if it is missing or
+     * malformed.
+     *
+     * @param value        {@link String} to parse.
+     * @param defaultValue int returned if the value cannot be parsed.
+     * @return The parsed int or the default.
+     */
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.davidread.booklistings;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link HedgedBookSource} against two local {@link FakeBooksServer} instances standing in
+ * for a primary and a secondary endpoint.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HedgedBookSourceTest {
+
+    /**
+     * long specifying the hedge delay used by the tests.
+     */
+    private static final long HEDGE_DELAY_MILLIS = 200;
+
+    /**
+     * long specifying the hedge delay used when the primary source streams its page. Longer than
+     * its first batch takes, but shorter than its whole page.
+     */
+    private static final long STREAMING_HEDGE_DELAY_MILLIS = 1000;
+
+    /**
+     * long specifying the bandwidth the primary server streams its page at, in bytes per second.
+     */
+    private static final long STREAMING_BYTES_PER_SECOND = 4 * 1024;
+
+    /**
+     * {@link FakeBooksServer} standing in for the primary endpoint.
+     */
+    private FakeBooksServer primaryServer;
+
+    /**
+     * {@link FakeBooksServer} standing in for the secondary endpoint.
+     */
+    private FakeBooksServer secondaryServer;
+
+    /**
+     * {@link GoogleBooksSource} fetching from the primary server.
+     */
+    private GoogleBooksSource primarySource;
+
+    /**
+     * {@link GoogleBooksSource} fetching from the secondary server.
+     */
+    private GoogleBooksSource secondarySource;
+
+    /**
+     * {@link HedgedBookSource} under test.
+     */
+    private HedgedBookSource hedgedBookSource;
+
+    /**
+     * Starts both servers and builds the {@link HedgedBookSource} under test.
+     */
+    @Before
+    public void setUp() throws Exception {
+        primaryServer = new FakeBooksServer();
+        secondaryServer = new FakeBooksServer();
+        primarySource = new GoogleBooksSource("primary", primaryServer.getBaseUrl());
+        secondarySource = new GoogleBooksSource("secondary", secondaryServer.getBaseUrl());
+        hedgedBookSource = new HedgedBookSource(primarySource, secondarySource, HEDGE_DELAY_MILLIS);
+    }
+
+    /**
+     * Shuts both servers down.
+     */
+    @After
+    public void tearDown() throws Exception {
+        primaryServer.shutdown();
+        secondaryServer.shutdown();
+    }
+
+    /**
+     * A fast primary source answers without a hedge.
+     */
+    @Test
+    public void fastPrimaryIsNotHedged() throws Exception {
+        BookPage bookPage = hedgedBookSource.fetchPage("android", 0, BookLoader.PAGE_SIZE, null);
+
+        assertSame(primarySource, bookPage.getSource());
+        assertEquals(BookLoader.PAGE_SIZE, bookPage.getBooks().size());
+        assertEquals(0, hedgedBookSource.getHedgeCount());
+        assertEquals(1, hedgedBookSource.getPrimaryWinCount());
+        assertEquals(0, secondaryServer.getRequestCount());
+    }
+
+    /**
+     * A primary source slower than the hedge delay is hedged and loses to the secondary source.
+     */
+    @Test
+    public void slowPrimaryIsHedged() throws Exception {
+        primaryServer.setLatencyMillis(HEDGE_DELAY_MILLIS * 10);
+
+        BookPage bookPage = hedgedBookSource.fetchPage("android", 0, BookLoader.PAGE_SIZE, null);
+
+        assertSame(secondarySource, bookPage.getSource());
+        assertEquals(BookLoader.PAGE_SIZE, bookPage.getBooks().size());
+        assertEquals(1, hedgedBookSource.getHedgeCount());
+        assertEquals(1, hedgedBookSource.getSecondaryWinCount());
+        assertEquals(1.0, hedgedBookSource.getHedgeRate(), 0.0);
+    }
+
+    /**
+     * A failing primary source is hedged right away instead of after the hedge delay.
+     */
+    @Test
+    public void failingPrimaryIsHedgedRightAway() throws Exception {
+        primaryServer.setErrorRate(1);
+        secondaryServer.setLatencyMillis(HEDGE_DELAY_MILLIS * 10);
+
+        BookPage bookPage = hedgedBookSource.fetchPage("android", 0, BookLoader.PAGE_SIZE, null);
+
+        assertSame(secondarySource, bookPage.getSource());
+        assertEquals(1, hedgedBookSource.getHedgeCount());
+        assertEquals(1, hedgedBookSource.getSecondaryWinCount());
+    }
+
+    /**
+     * A primary source whose response is cut off fails instead of answering with a partial page,
+     * so the page is taken from the secondary source.
+     */
+    @Test
+    public void truncatedPrimaryIsHedged() throws Exception {
+        primaryServer.setTruncated(true);
+
+        BookPage bookPage = hedgedBookSource.fetchPage("android", 0, BookLoader.PAGE_SIZE, null);
+
+        assertSame(secondarySource, bookPage.getSource());
+        assertEquals(BookLoader.PAGE_SIZE, bookPage.getBooks().size());
+        assertEquals(1, hedgedBookSource.getHedgeCount());
+        assertEquals(1, hedgedBookSource.getSecondaryWinCount());
+    }
+
+    /**
+     * A primary source that streams its first batch before the hedge delay owns the page and is
+     * not hedged, even though the whole page takes longer than the delay.
+     */
+    @Test
+    public void streamingPrimaryIsNotHedged() throws Exception {
+        primaryServer.setBytesPerSecond(STREAMING_BYTES_PER_SECOND);
+        HedgedBookSource streamingBookSource = new HedgedBookSource(primarySource, secondarySource, STREAMING_HEDGE_DELAY_MILLIS);
+        final List<Book> streamedBooks = Collections.synchronizedList(new ArrayList<Book>());
+        final Set<BookSource> batchSources = Collections.synchronizedSet(new HashSet<BookSource>());
+
+        long startTime = SystemClock.elapsedRealtime();
+        BookPage bookPage = streamingBookSource.fetchPage("android", 0, BookLoader.PAGE_SIZE, new BookSource.OnBatchListener() {
+            @Override
+            public void onBatch(@NonNull BookSource source, @NonNull List<Book> books) {
+                batchSources.add(source);
+                streamedBooks.addAll(books);
+            }
+        });
+        long elapsedMillis = SystemClock.elapsedRealtime() - startTime;
+
+        assertTrue("Page took " + elapsedMillis + " ms", elapsedMillis > STREAMING_HEDGE_DELAY_MILLIS);
+        assertSame(primarySource, bookPage.getSource());
+        assertEquals(BookLoader.PAGE_SIZE, streamedBooks.size());
+        assertEquals(Collections.<BookSource>singleton(primarySource), batchSources);
+        assertEquals(0, streamingBookSource.getHedgeCount());
+        assertEquals(0, secondaryServer.getRequestCount());
+    }
+}
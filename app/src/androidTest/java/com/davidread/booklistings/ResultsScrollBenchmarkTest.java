@@ -0,0 +1,419 @@
+package com.davidread.booklistings;
+
+import android.content.Context;
+import android.content.Intent;
+import android.database.DataSetObserver;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+import android.widget.HeaderViewListAdapter;
+import android.widget.ListView;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Load test harness that drives {@link ResultsActivity} against a local {@link FakeBooksServer}.
+ * It scrolls through {@link #PAGE_COUNT} pages of results and reports the time to first result,
+ * the mean time per page, the share of dropped frames and the {@link ListMetrics} report as
+ * instrumentation status results, so they can be collected with {@code adb shell am instrument -r}.
+ * A second run injects server errors into the primary endpoint and hedges to a healthy mirror.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ResultsScrollBenchmarkTest {
+
+    /**
+     * {@link String} query term searched for.
+     */
+    private static final String QUERY = "android";
+
+    /**
+     * int specifying how many pages are scrolled through after the first one.
+     */
+    private static final int PAGE_COUNT = 10;
+
+    /**
+     * long specifying how many milliseconds the harness waits for a single page.
+     */
+    private static final long PAGE_TIMEOUT_MILLIS = 30000;
+
+    /**
+     * long specifying the latency injected into every response.
+     */
+    private static final long LATENCY_MILLIS = 150;
+
+    /**
+     * long specifying the bandwidth responses are throttled to, in bytes per second.
+     */
+    private static final long BYTES_PER_SECOND = 64 * 1024;
+
+    /**
+     * double specifying the share of requests the primary endpoint fails in the flaky run.
+     */
+    private static final double ERROR_RATE = 0.2;
+
+    /**
+     * long specifying how many milliseconds the flaky run waits for the primary endpoint before
+     * hedging to the mirror.
+     */
+    private static final long HEDGE_DELAY_MILLIS = 1000;
+
+    /**
+     * {@link FakeBooksServer} serving the results.
+     */
+    private FakeBooksServer fakeBooksServer;
+
+    /**
+     * {@link FakeBooksServer} standing in for the mirror in the flaky run, or null.
+     */
+    private FakeBooksServer mirrorServer;
+
+    /**
+     * Starts the {@link FakeBooksServer}, points {@link BookLoader} at it and clears the
+     * {@link BookCache} so every page is fetched.
+     */
+    @Before
+    public void setUp() throws Exception {
+        fakeBooksServer = new FakeBooksServer();
+        fakeBooksServer.setLatencyMillis(LATENCY_MILLIS);
+        fakeBooksServer.setBytesPerSecond(BYTES_PER_SECOND);
+        BookLoader.setBookSource(new GoogleBooksSource("fake", fakeBooksServer.getBaseUrl()));
+        Context context = ApplicationProvider.getApplicationContext();
+        new BookCache(context).clear();
+    }
+
+    /**
+     * Shuts the servers down and points {@link BookLoader} back at the configured sources.
+     */
+    @After
+    public void tearDown() throws Exception {
+        fakeBooksServer.shutdown();
+        if (mirrorServer != null) {
+            mirrorServer.shutdown();
+        }
+        BookLoader.setBookSource(BookLoader.createDefaultBookSource());
+    }
+
+    /**
+     * Scrolls through the results of a healthy endpoint and reports the measurements.
+     */
+    @Test
+    public void scrollThroughResults() throws Exception {
+        Bundle results = scrollThroughPages();
+        reportResults(results);
+    }
+
+    /**
+     * Scrolls through the results while the primary endpoint fails {@link #ERROR_RATE} of its
+     * requests and failed requests are hedged to a healthy mirror. Reports the measurements along
+     * with the hedge counters.
+     */
+    @Test
+    public void scrollThroughResultsWithFlakyPrimary() throws Exception {
+        fakeBooksServer.setErrorRate(ERROR_RATE);
+        mirrorServer = new FakeBooksServer();
+        mirrorServer.setLatencyMillis(LATENCY_MILLIS);
+        mirrorServer.setBytesPerSecond(BYTES_PER_SECOND);
+        HedgedBookSource hedgedBookSource = new HedgedBookSource(
+                new GoogleBooksSource("fake", fakeBooksServer.getBaseUrl()),
+                new GoogleBooksSource("fake-mirror", mirrorServer.getBaseUrl()),
+                HEDGE_DELAY_MILLIS);
+        BookLoader.setBookSource(hedgedBookSource);
+
+        Bundle results = scrollThroughPages();
+        results.putDouble("error_rate", ERROR_RATE);
+        results.putInt("mirror_requests", mirrorServer.getRequestCount());
+        results.putLong("hedges", hedgedBookSource.getHedgeCount());
+        results.putLong("mirror_wins", hedgedBookSource.getSecondaryWinCount());
+        reportResults(results);
+    }
+
+    /**
+     * Launches {@link ResultsActivity}, scrolls through {@link #PAGE_COUNT} pages and returns the
+     * measurements.
+     *
+     * @return {@link Bundle} holding the measurements.
+     */
+    private Bundle scrollThroughPages() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        Intent intent = new Intent(context, ResultsActivity.class);
+        intent.putExtra(SearchActivity.INTENT_EXTRA_QUERY, QUERY);
+        final AtomicReference<FrameCounter> frameCounter = new AtomicReference<>();
+
+        long launchTime = SystemClock.elapsedRealtime();
+        try (ActivityScenario<ResultsActivity> scenario = ActivityScenario.launch(intent)) {
+            scenario.onActivity(new ActivityScenario.ActivityAction<ResultsActivity>() {
+                @Override
+                public void perform(ResultsActivity activity) {
+                    frameCounter.set(new FrameCounter(activity.getWindowManager().getDefaultDisplay().getRefreshRate()));
+                    frameCounter.get().start();
+                }
+            });
+
+            // Measure the time until the first row is shown and the first page is complete.
+            long firstResultTime = waitForRows(scenario, 1);
+            assertTrue("First result timed out", firstResultTime >= 0);
+            long timeToFirstResult = firstResultTime - launchTime;
+            assertTrue("First page timed out", waitForCompletePages(scenario, 1) >= 0);
+
+            // Scroll to the end of the list once per page and measure until that page is complete.
+            long totalPageMillis = 0;
+            for (int page = 1; page <= PAGE_COUNT; page++) {
+                long pageStartTime = SystemClock.elapsedRealtime();
+                scenario.onActivity(new ActivityScenario.ActivityAction<ResultsActivity>() {
+                    @Override
+                    public void perform(ResultsActivity activity) {
+                        ListView listView = activity.findViewById(R.id.book_list_view);
+                        listView.smoothScrollToPosition(listView.getCount() - 1);
+                    }
+                });
+                long pageCompleteTime = waitForCompletePages(scenario, page + 1);
+                assertTrue("Page " + page + " timed out", pageCompleteTime >= 0);
+                totalPageMillis += pageCompleteTime - pageStartTime;
+            }
+
+            final AtomicReference<String> listMetricsReport = new AtomicReference<>();
+            scenario.onActivity(new ActivityScenario.ActivityAction<ResultsActivity>() {
+                @Override
+                public void perform(ResultsActivity activity) {
+                    frameCounter.get().stop();
+                    listMetricsReport.set(activity.getListMetrics().getReport());
+                }
+            });
+
+            // Collect the measurements.
+            Bundle results = new Bundle();
+            results.putLong("time_to_first_result_ms", timeToFirstResult);
+            results.putLong("mean_time_per_page_ms", totalPageMillis / PAGE_COUNT);
+            results.putInt("frames", frameCounter.get().getFrameCount());
+            results.putInt("dropped_frames", frameCounter.get().getDroppedFrameCount());
+            results.putInt("requests", fakeBooksServer.getRequestCount());
+            results.putString("list_metrics", listMetricsReport.get());
+            return results;
+        }
+    }
+
+    /**
+     * Logs the given measurements and sends them as instrumentation status results.
+     *
+     * @param results {@link Bundle} holding the measurements.
+     */
+    private static void reportResults(Bundle results) {
+        Log.i(ResultsScrollBenchmarkTest.class.getSimpleName(), results.toString());
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+    }
+
+    /**
+     * Waits until the results list shows at least the given number of rows.
+     *
+     * @param scenario {@link ActivityScenario} of the {@link ResultsActivity}.
+     * @param rowCount int number of rows to wait for.
+     * @return The {@link SystemClock#elapsedRealtime()} at which the rows were shown, or -1 if
+     * the wait timed out.
+     */
+    private static long waitForRows(ActivityScenario<ResultsActivity> scenario, final int rowCount) throws InterruptedException {
+        return waitForAdapter(scenario, new AdapterCondition() {
+            @Override
+            public boolean isMet(BookAdapter bookAdapter) {
+                return bookAdapter.getCount() >= rowCount;
+            }
+        });
+    }
+
+    /**
+     * Waits until the results list holds at least the given number of complete pages.
+     *
+     * @param scenario  {@link ActivityScenario} of the {@link ResultsActivity}.
+     * @param pageCount int number of complete pages to wait for.
+     * @return The {@link SystemClock#elapsedRealtime()} at which the pages were completed, or -1
+     * if the wait timed out.
+     */
+    private static long waitForCompletePages(ActivityScenario<ResultsActivity> scenario, final int pageCount) throws InterruptedException {
+        return waitForAdapter(scenario, new AdapterCondition() {
+            @Override
+            public boolean isMet(BookAdapter bookAdapter) {
+                return bookAdapter.getPageCount() >= pageCount && bookAdapter.getOpenPageIndex() < 0;
+            }
+        });
+    }
+
+    /**
+     * Waits until the given condition holds for the {@link BookAdapter} of the results list. The
+     * condition is checked by a {@link DataSetObserver} whenever the adapter changes, so the main
+     * thread is not polled while the list scrolls.
+     *
+     * @param scenario  {@link ActivityScenario} of the {@link ResultsActivity}.
+     * @param condition {@link AdapterCondition} to wait for.
+     * @return The {@link SystemClock#elapsedRealtime()} at which the condition was met, or -1 if
+     * the wait timed out.
+     */
+    private static long waitForAdapter(ActivityScenario<ResultsActivity> scenario, final AdapterCondition condition) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicLong metTime = new AtomicLong(-1);
+        final AtomicReference<DataSetObserver> dataSetObserver = new AtomicReference<>();
+
+        // Check the condition now and on every change of the adapter.
+        scenario.onActivity(new ActivityScenario.ActivityAction<ResultsActivity>() {
+            @Override
+            public void perform(ResultsActivity activity) {
+                final BookAdapter bookAdapter = getBookAdapter(activity);
+                dataSetObserver.set(new DataSetObserver() {
+                    @Override
+                    public void onChanged() {
+                        if (latch.getCount() > 0 && condition.isMet(bookAdapter)) {
+                            metTime.set(SystemClock.elapsedRealtime());
+                            latch.countDown();
+                        }
+                    }
+                });
+                bookAdapter.registerDataSetObserver(dataSetObserver.get());
+                dataSetObserver.get().onChanged();
+            }
+        });
+        latch.await(PAGE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        // Stop checking the condition.
+        scenario.onActivity(new ActivityScenario.ActivityAction<ResultsActivity>() {
+            @Override
+            public void perform(ResultsActivity activity) {
+                getBookAdapter(activity).unregisterDataSetObserver(dataSetObserver.get());
+            }
+        });
+        return metTime.get();
+    }
+
+    /**
+     * Returns the {@link BookAdapter} of the given {@link ResultsActivity}.
+     *
+     * @param activity {@link ResultsActivity} to get the adapter of.
+     * @return The {@link BookAdapter} of the given {@link ResultsActivity}.
+     */
+    private static BookAdapter getBookAdapter(ResultsActivity activity) {
+        ListView listView = activity.findViewById(R.id.book_list_view);
+        return (BookAdapter) ((HeaderViewListAdapter) listView.getAdapter()).getWrappedAdapter();
+    }
+
+    /**
+     * {@link AdapterCondition} is a condition on the {@link BookAdapter} of the results list that
+     * the harness waits for.
+     */
+    private interface AdapterCondition {
+
+        /**
+         * Returns whether the condition holds for the given {@link BookAdapter}. Called on the
+         * main thread.
+         *
+         * @param bookAdapter {@link BookAdapter} of the results list.
+         * @return Whether the condition holds.
+         */
+        boolean isMet(BookAdapter bookAdapter);
+    }
+
+    /**
+     * {@link FrameCounter} counts frames with a {@link Choreographer.FrameCallback} and treats
+     * every gap longer than one and a half frame intervals of the display as dropped frames. Must
+     * be used from the main thread.
+     */
+    private static class FrameCounter implements Choreographer.FrameCallback {
+
+        /**
+         * long specifying the expected frame interval of the display in nanoseconds.
+         */
+        private final long frameIntervalNanos;
+
+        /**
+         * long representing the time of the previous frame, or 0 before the first frame.
+         */
+        private long previousFrameTimeNanos;
+
+        /**
+         * int representing the number of frames rendered.
+         */
+        private int frameCount;
+
+        /**
+         * int representing the number of frames dropped.
+         */
+        private int droppedFrameCount;
+
+        /**
+         * Boolean representing whether frames are being counted.
+         */
+        private boolean running;
+
+        /**
+         * Constructs a new {@link FrameCounter} object.
+         *
+         * @param refreshRate float specifying the refresh rate of the display in frames per
+         *                    second.
+         */
+        FrameCounter(float refreshRate) {
+            this.frameIntervalNanos = (long) (1000000000L / (refreshRate > 0 ? refreshRate : 60));
+        }
+
+        /**
+         * Starts counting frames.
+         */
+        void start() {
+            running = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        /**
+         * Stops counting frames.
+         */
+        void stop() {
+            running = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        /**
+         * Returns the number of frames rendered.
+         *
+         * @return The number of frames rendered.
+         */
+        int getFrameCount() {
+            return frameCount;
+        }
+
+        /**
+         * Returns the number of frames dropped.
+         *
+         * @return The number of frames dropped.
+         */
+        int getDroppedFrameCount() {
+            return droppedFrameCount;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!running) {
+                return;
+            }
+            if (previousFrameTimeNanos > 0) {
+                long gapNanos = frameTimeNanos - previousFrameTimeNanos;
+                if (gapNanos > frameIntervalNanos * 3 / 2) {
+                    droppedFrameCount += (int) (gapNanos / frameIntervalNanos) - 1;
+                }
+            }
+            previousFrameTimeNanos = frameTimeNanos;
+            frameCount++;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
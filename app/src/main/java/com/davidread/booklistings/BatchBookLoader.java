@@ -0,0 +1,241 @@
+package com.davidread.booklistings;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * {@link BatchBookLoader} is a {@link BookLoader} for a batch search, which is a query term made
+ * of several query terms separated by {@link #QUERY_SEPARATOR}. It loads the page of every query
+ * term at once, up to {@link #MAX_CONCURRENT_QUERIES} at a time, so a page takes about as long as
+ * its slowest query term. The pages are merged into a single page as they stream in: every
+ * {@link Book} object is tagged with the query term that found it, and books already found by
+ * another query term or an earlier page are left out. The merged page is stored in the
+ * {@link BookCache} under the batch query term, so a dropped page is reloaded with the same rows.
+ */
+public class BatchBookLoader extends BookLoader {
+
+    /**
+     * char separating the query terms of a batch search.
+     */
+    public static final char QUERY_SEPARATOR = ';';
+
+    /**
+     * int specifying the maximum number of query terms in a batch search. Further query terms are
+     * ignored.
+     */
+    public static final int MAX_QUERIES = 8;
+
+    /**
+     * int specifying how many query terms are loaded at the same time.
+     */
+    private static final int MAX_CONCURRENT_QUERIES = 4;
+
+    /**
+     * {@link List} of the query terms of the batch search.
+     */
+    private final List<String> queries;
+
+    /**
+     * {@link Set} holding the key of every {@link Book} object shown on earlier pages.
+     */
+    private final Set<String> excludedBookKeys;
+
+    /**
+     * {@link Object} guarding the merged page while it is built.
+     */
+    private final Object mergeLock;
+
+    /**
+     * {@link List} of the merged {@link Book} objects, or null if the load has not finished yet or
+     * came back empty.
+     */
+    private List<Book> mergedBooks;
+
+    /**
+     * Constructs a new {@link BatchBookLoader} object.
+     *
+     * @param context          {@link Context} for the superclass constructor.
+     * @param query            {@link String} specifying the batch query term.
+     * @param startIndex       int specifying the start index for the volumes search of every
+     *                         query term.
+     * @param pageSize         int specifying the number of results per page for the volumes
+     *                         search of every query term, up to {@link #PAGE_SIZE}.
+     * @param excludedBookKeys {@link Collection} holding the key of every {@link Book} object
+     *                         shown on earlier pages, as returned by {@link #getBookKey(Book)}.
+     */
+    public BatchBookLoader(@NonNull Context context, String query, int startIndex, int pageSize, @NonNull Collection<String> excludedBookKeys) {
+        super(context, query, startIndex, pageSize);
+        this.queries = parseQueries(query);
+        this.excludedBookKeys = new HashSet<>(excludedBookKeys);
+        this.mergeLock = new Object();
+        this.mergedBooks = null;
+    }
+
+    /**
+     * Callback method invoked to perform the actual load on a worker thread and return the result.
+     * First, it'll try to return the merged page saved in this {@link BatchBookLoader} object, and
+     * then the merged page stored in the {@link BookCache}. Otherwise, it loads the page of every
+     * query term concurrently and publishes the merged {@link Book} objects as they stream in. The
+     * merged page is only saved and cached if the page of every query term was loaded, so a query
+     * term that failed does not go missing from the page for as long as it is cached.
+     *
+     * @return A {@link List} of the merged {@link Book} objects, in the order they were published.
+     */
+    @Nullable
+    @Override
+    public List<Book> loadInBackground() {
+
+        // If a merged page is saved in this BatchBookLoader, return it.
+        if (mergedBooks != null) {
+            RowTextPrecomputer.precompute(mergedBooks);
+            return mergedBooks;
+        }
+
+        // If a fresh merged page is cached, return it and do not perform any network request.
+        BookCache bookCache = new BookCache(getContext());
+        List<Book> cachedBooks = bookCache.get(getQuery(), getStartIndex(), getPageSize());
+        if (cachedBooks != null) {
+            RowTextPrecomputer.precompute(cachedBooks);
+            mergedBooks = cachedBooks;
+            return mergedBooks;
+        }
+
+        // Load the page of every query term, merging batches as they stream in.
+        final List<Book> books = new ArrayList<>();
+        final Set<String> bookKeys = new HashSet<>(excludedBookKeys);
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(queries.size(), MAX_CONCURRENT_QUERIES));
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (final String query : queries) {
+            futures.add(executorService.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    BookSource.OnBatchListener onBatchListener = new BookSource.OnBatchListener() {
+                        @Override
+                        public void onBatch(@NonNull BookSource source, @NonNull List<Book> batch) {
+                            merge(query, batch, books, bookKeys);
+                        }
+                    };
+                    List<Book> page = loadPage(getContext(), query, getStartIndex(), getPageSize(), onBatchListener);
+                    if (page == null) {
+                        return false;
+                    }
+
+                    // Merge the rest of the page, such as a page taken from the BookCache.
+                    merge(query, page, books, bookKeys);
+                    return true;
+                }
+            }));
+        }
+        boolean complete = true;
+        try {
+            for (Future<Boolean> future : futures) {
+                complete &= future.get();
+            }
+        } catch (InterruptedException e) {
+            complete = false;
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            complete = false;
+            Log.e(BatchBookLoader.class.getSimpleName(), "Error loading batch search " + getQuery(), e);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        /* Save and cache the merged page only if every query term was loaded and it holds
+         * results, so a failed or empty load is retried. */
+        List<Book> loadedBooks;
+        synchronized (mergeLock) {
+            loadedBooks = new ArrayList<>(books);
+        }
+        if (complete && !loadedBooks.isEmpty()) {
+            mergedBooks = loadedBooks;
+            bookCache.put(getQuery(), getStartIndex(), getPageSize(), loadedBooks);
+        }
+        return loadedBooks;
+    }
+
+    /**
+     * Returns a {@link List} of the distinct, non-empty query terms in the given batch query
+     * term, up to {@link #MAX_QUERIES}. A query term without {@link #QUERY_SEPARATOR} yields
+     * itself.
+     *
+     * @param query {@link String} specifying the batch query term.
+     * @return A {@link List} of the query terms in the batch query term.
+     */
+    @NonNull
+    public static List<String> parseQueries(@NonNull String query) {
+        List<String> queries = new ArrayList<>();
+        Set<String> queryKeys = new HashSet<>();
+        for (String part : query.split(String.valueOf(QUERY_SEPARATOR))) {
+            String trimmedPart = part.trim();
+            if (!trimmedPart.isEmpty() && queries.size() < MAX_QUERIES && queryKeys.add(trimmedPart.toLowerCase(Locale.getDefault()))) {
+                queries.add(trimmedPart);
+            }
+        }
+        if (queries.isEmpty()) {
+            queries.add(query);
+        }
+        return queries;
+    }
+
+    /**
+     * Returns a {@link String} identifying the given {@link Book} object across query terms. It is
+     * the URL of the book, or its title and authors if it has no URL.
+     *
+     * @param book {@link Book} object to identify.
+     * @return A {@link String} identifying the given {@link Book} object.
+     */
+    @NonNull
+    public static String getBookKey(@NonNull Book book) {
+        if (book.getUrl() != null && !book.getUrl().isEmpty()) {
+            return book.getUrl();
+        }
+        return (book.getTitle() + "\n" + RowTextPrecomputer.formatAuthors(book.getAuthors())).toLowerCase(Locale.getDefault());
+    }
+
+    /**
+     * Adds copies of the {@link Book} objects of the given batch that were not found before to
+     * the merged page, tagged with the given query term, and publishes them. Batches are merged
+     * one at a time, so they are published in the order of the merged page.
+     *
+     * @param query    {@link String} specifying the query term that found the batch.
+     * @param batch    {@link List} of {@link Book} objects to merge.
+     * @param books    {@link List} of the merged {@link Book} objects.
+     * @param bookKeys {@link Set} holding the key of every {@link Book} object found before.
+     */
+    private void merge(String query, @NonNull List<Book> batch, @NonNull List<Book> books, @NonNull Set<String> bookKeys) {
+        synchronized (mergeLock) {
+            List<Book> newBooks = new ArrayList<>();
+            for (Book book : batch) {
+                if (bookKeys.add(getBookKey(book))) {
+
+                    // Tag a copy, since the Book object is also stored for its own query term.
+                    Book taggedBook = new Book(book.getTitle(), book.getAuthors(), book.getUrl());
+                    taggedBook.setRowTitle(book.getRowTitle());
+                    taggedBook.setRowAuthors(book.getRowAuthors());
+                    taggedBook.setSourceQuery(query);
+                    newBooks.add(taggedBook);
+                }
+            }
+            if (!newBooks.isEmpty()) {
+                books.addAll(newBooks);
+                publishBooks(newBooks);
+            }
+        }
+    }
+}
@@ -40,6 +40,24 @@ public class Book implements Parcelable {
      */
     private String url;
 
+    /**
+     * {@link String} representing the query term of a batch search that found the book, or null
+     * if the book was not found by a batch search.
+     */
+    private volatile String sourceQuery;
+
+    /**
+     * {@link CharSequence} holding the title laid out for a list row, or null. It is not
+     * parceled.
+     */
+    private volatile CharSequence rowTitle;
+
+    /**
+     * {@link CharSequence} holding the formatted authors laid out for a list row, or null. It is
+     * not parceled.
+     */
+    private volatile CharSequence rowAuthors;
+
     /**
      * Constructs a new {@link Book} object.
      *
@@ -64,6 +82,7 @@ public class Book implements Parcelable {
         title = in.readString();
         authors = in.createStringArray();
         url = in.readString();
+        sourceQuery = in.readString();
     }
 
     /**
@@ -94,6 +113,64 @@ public class Book implements Parcelable {
         return url;
     }
 
+    /**
+     * Returns a {@link String} representing the query term of a batch search that found the book.
+     *
+     * @return {@link String} representing the query term that found the book, or null if the book
+     * was not found by a batch search.
+     */
+    public String getSourceQuery() {
+        return sourceQuery;
+    }
+
+    /**
+     * Sets the {@link String} representing the query term of a batch search that found the book.
+     *
+     * @param sourceQuery {@link String} representing the query term that found the book.
+     */
+    public void setSourceQuery(String sourceQuery) {
+        this.sourceQuery = sourceQuery;
+    }
+
+    /**
+     * Returns a {@link CharSequence} holding the title laid out for a list row by the
+     * {@link RowTextPrecomputer}, or null.
+     *
+     * @return {@link CharSequence} holding the title laid out for a list row, or null.
+     */
+    public CharSequence getRowTitle() {
+        return rowTitle;
+    }
+
+    /**
+     * Sets the {@link CharSequence} holding the title laid out for a list row.
+     *
+     * @param rowTitle {@link CharSequence} holding the title laid out for a list row.
+     */
+    public void setRowTitle(CharSequence rowTitle) {
+        this.rowTitle = rowTitle;
+    }
+
+    /**
+     * Returns a {@link CharSequence} holding the formatted authors laid out for a list row by the
+     * {@link RowTextPrecomputer}, or null.
+     *
+     * @return {@link CharSequence} holding the formatted authors laid out for a list row, or null.
+     */
+    public CharSequence getRowAuthors() {
+        return rowAuthors;
+    }
+
+    /**
+     * Sets the {@link CharSequence} holding the formatted authors laid out for a list row.
+     *
+     * @param rowAuthors {@link CharSequence} holding the formatted authors laid out for a list
+     *                   row.
+     */
+    public void setRowAuthors(CharSequence rowAuthors) {
+        this.rowAuthors = rowAuthors;
+    }
+
     /**
      * Returns an int that describes the type of objects contained in this {@link Parcelable}
      * instance.
@@ -117,5 +194,6 @@ public class Book implements Parcelable {
         dest.writeString(title);
         dest.writeStringArray(authors);
         dest.writeString(url);
+        dest.writeString(sourceQuery);
     }
 }
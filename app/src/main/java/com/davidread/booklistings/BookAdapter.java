@@ -1,10 +1,12 @@
 package com.davidread.booklistings;
 
 import android.content.Context;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.BaseAdapter;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
@@ -14,85 +16,534 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * {@link BookAdapter} is an adapter class. It adapts an {@link List} of {@link Book} objects into
- * {@link View} objects.
+ * {@link BookAdapter} is an adapter class. It adapts pages of {@link Book} objects into
+ * {@link View} objects. Only the pages within {@link #WINDOW_RADIUS} of the visible page are kept
+ * in memory. Pages outside of this window are dropped and their rows are rendered as placeholders
+ * until the page is put back with {@link #setPage(int, List)}. In a sorted view, where the visible
+ * rows may belong to any page, up to {@link #MAX_RESIDENT_PAGES} pages of the rows around them
+ * are kept instead, along with the page of every visible row. The last page may be kept open
+ * while it is still streaming in, so its rows can be shown before the whole page is loaded. Rows
+ * are shown in relevance order unless a {@link BookOrdering} is set, which maps every position to
+ * a position in relevance order and starts groups with a header.
  */
-public class BookAdapter extends ArrayAdapter<Book> {
+public class BookAdapter extends BaseAdapter {
+
+    /**
+     * int specifying how many pages on either side of the visible page stay resident.
+     */
+    public static final int WINDOW_RADIUS = 2;
+
+    /**
+     * int specifying how many pages stay resident, plus the open page. In a sorted view, more
+     * pages stay resident only if the visible rows alone belong to more pages.
+     */
+    public static final int MAX_RESIDENT_PAGES = 2 * WINDOW_RADIUS + 1;
+
+    /**
+     * {@link Context} used for inflating list item layouts.
+     */
+    private final Context context;
+
+    /**
+     * {@link SparseArray} mapping a page index to the {@link List} of {@link Book} objects of each
+     * resident page.
+     */
+    private final SparseArray<List<Book>> residentPages;
+
+    /**
+     * {@link List} holding the number of rows of every page that has been appended to this
+     * adapter, resident or not.
+     */
+    private final List<Integer> pageSizes;
+
+    /**
+     * {@link List} holding the position of the first row of every page that has been appended to
+     * this adapter.
+     */
+    private final List<Integer> pageOffsets;
+
+    /**
+     * int representing the total number of rows in this adapter.
+     */
+    private int count;
+
+    /**
+     * int representing the index of the page that is still streaming in, or -1.
+     */
+    private int openPageIndex;
+
+    /**
+     * {@link ListMetrics} timing every bind, or null.
+     */
+    @Nullable
+    private ListMetrics listMetrics;
+
+    /**
+     * Boolean representing whether the text metrics of a bound row have been passed to the
+     * {@link RowTextPrecomputer}.
+     */
+    private boolean rowTextMetricsSet;
+
+    /**
+     * {@link BookOrdering} the rows are shown in, or null to show them in relevance order.
+     */
+    @Nullable
+    private BookOrdering ordering;
 
     /**
      * Construct a new {@link BookAdapter} object.
      *
-     * @param context {@link Context} for the superclass constructor.
-     * @param objects {@link List} of {@link Book} objects to adapt.
+     * @param context {@link Context} used for inflating list item layouts.
+     */
+    public BookAdapter(@NonNull Context context) {
+        this.context = context;
+        this.residentPages = new SparseArray<>();
+        this.pageSizes = new ArrayList<>();
+        this.pageOffsets = new ArrayList<>();
+        this.count = 0;
+        this.openPageIndex = -1;
+    }
+
+    /**
+     * Returns the total number of rows in this adapter, including placeholder rows. With a
+     * {@link BookOrdering} set, only the rows in the ordering are counted.
+     *
+     * @return The total number of rows in this adapter.
+     */
+    @Override
+    public int getCount() {
+        return ordering != null ? ordering.size() : count;
+    }
+
+    /**
+     * Returns the {@link Book} object at the given position, or null if the page holding that
+     * position is not resident.
+     *
+     * @param position Int index of the row.
+     * @return The {@link Book} object at the given position, or null for a placeholder row.
      */
-    public BookAdapter(@NonNull Context context, @NonNull List<Book> objects) {
-        super(context, 0, objects);
+    @Nullable
+    @Override
+    public Book getItem(int position) {
+        position = getRelevancePosition(position);
+        int pageIndex = findPageIndex(position);
+        List<Book> page = residentPages.get(pageIndex);
+        if (page == null) {
+            return null;
+        }
+        int pagePosition = position - pageOffsets.get(pageIndex);
+        return pagePosition < page.size() ? page.get(pagePosition) : null;
     }
 
     /**
-     * Returns an adapted {@link View} object constructed from a {@link Book} object in the
-     * {@link List} passed into the constructor of {@link BookAdapter}.
+     * Returns the row id of the given position, which is its position in relevance order.
      *
-     * @param position    Int index representing which {@link Book} object to adapt from the
-     *                    {@link List}.
+     * @param position Int index of the row.
+     * @return The row id of the given position.
+     */
+    @Override
+    public long getItemId(int position) {
+        return getRelevancePosition(position);
+    }
+
+    /**
+     * Returns an adapted {@link View} object constructed from the {@link Book} object at the
+     * given position. A placeholder row is returned if the page holding that position is not
+     * resident.
+     *
+     * @param position    Int index representing which {@link Book} object to adapt.
      * @param convertView {@link View} object to be returned.
      * @param parent      The parent {@link ViewGroup}.
-     * @return A {@link View} object constructed from a {@link Book} object in the {@link List}
-     * passed into the constructor of {@link BookAdapter}.
+     * @return A {@link View} object constructed from the {@link Book} object at the given position.
      */
     @NonNull
     @Override
     public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
 
+        long bindStartNanos = listMetrics != null ? listMetrics.startBind() : 0;
+
         // Inflate list item layout if passed convertView is null.
-        if (convertView == null) {
-            convertView = LayoutInflater.from(getContext()).inflate(R.layout.list_item_book, parent, false);
+        boolean inflated = convertView == null;
+        if (inflated) {
+            convertView = LayoutInflater.from(context).inflate(R.layout.list_item_book, parent, false);
         }
 
-        // Get the appropriate Book object from the list.
-        Book book = getItem(position);
+        // Show a group header above the first row of every group.
+        TextView groupHeaderTextView = convertView.findViewById(R.id.group_header_text_view);
+        String groupLabel = ordering != null ? ordering.getGroupLabel(position) : null;
+        groupHeaderTextView.setVisibility(groupLabel != null ? View.VISIBLE : View.GONE);
+        groupHeaderTextView.setText(groupLabel);
 
-        // Populate convertView with attributes of the Book object.
         TextView titleTextView = convertView.findViewById(R.id.title_text_view);
-        titleTextView.setText(book.getTitle());
-
         TextView authorsTextView = convertView.findViewById(R.id.authors_text_view);
-        authorsTextView.setText(getFormattedAuthorsString(book.getAuthors()));
 
+        /* Let row text be precomputed with the text metrics of the first bound row, which may
+         * differ from the ones taken before it was attached. */
+        if (!rowTextMetricsSet) {
+            RowTextPrecomputer.setTextViews(titleTextView, authorsTextView);
+            rowTextMetricsSet = true;
+        }
+
+        // Populate convertView with a placeholder if the page is not resident.
+        TextView sourceQueryTextView = convertView.findViewById(R.id.source_query_text_view);
+        Book book = getItem(position);
+        if (book == null) {
+            titleTextView.setText(R.string.list_item_placeholder);
+            authorsTextView.setText("");
+            sourceQueryTextView.setVisibility(View.GONE);
+        } else {
+            // Populate convertView with attributes of the Book object, laid out in advance.
+            RowTextPrecomputer.bind(titleTextView, authorsTextView, book);
+
+            // Show the query term that found the Book object in a batch search.
+            String sourceQuery = book.getSourceQuery();
+            sourceQueryTextView.setVisibility(sourceQuery != null ? View.VISIBLE : View.GONE);
+            sourceQueryTextView.setText(sourceQuery);
+        }
+
+        if (listMetrics != null) {
+            listMetrics.endBind(bindStartNanos, inflated);
+        }
         return convertView;
     }
 
     /**
-     * Returns a {@link List} of {@link Book} objects that are stored within this adapter.
+     * Inflates a list item layout once to pass its text metrics to the {@link RowTextPrecomputer}.
+     * Called before the first page is loaded, so its row text is laid out in advance as well. The
+     * metrics are taken again from the first row this adapter binds.
+     *
+     * @param parent The {@link ViewGroup} the rows will be shown in.
+     */
+    public void prepareRowText(@NonNull ViewGroup parent) {
+        View listItemView = LayoutInflater.from(context).inflate(R.layout.list_item_book, parent, false);
+        TextView titleTextView = listItemView.findViewById(R.id.title_text_view);
+        TextView authorsTextView = listItemView.findViewById(R.id.authors_text_view);
+        RowTextPrecomputer.setTextViews(titleTextView, authorsTextView);
+    }
+
+    /**
+     * Sets the {@link ListMetrics} that times every bind of this adapter.
+     *
+     * @param listMetrics {@link ListMetrics} timing every bind, or null to stop timing.
+     */
+    public void setListMetrics(@Nullable ListMetrics listMetrics) {
+        this.listMetrics = listMetrics;
+    }
+
+    /**
+     * Sets the {@link BookOrdering} the rows are shown in. Switching orderings takes constant
+     * time, since the ordering is computed in advance by {@link BookOrderings}.
      *
-     * @return A {@link List} of {@link Book} objects that are stored within this adapter.
+     * @param ordering {@link BookOrdering} to show the rows in, or null for relevance order.
      */
-    public List<Book> getObjects() {
-        List<Book> books = new ArrayList<>();
-        if (getCount() > 0) {
-            for (int index = 0; index < getCount(); index++) {
-                books.add(getItem(index));
+    public void setOrdering(@Nullable BookOrdering ordering) {
+        this.ordering = ordering;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Returns the {@link BookOrdering} the rows are shown in, or null if they are shown in
+     * relevance order.
+     *
+     * @return The {@link BookOrdering} the rows are shown in, or null.
+     */
+    @Nullable
+    public BookOrdering getOrdering() {
+        return ordering;
+    }
+
+    /**
+     * Returns the number of pages that have been appended to this adapter.
+     *
+     * @return The number of pages that have been appended to this adapter.
+     */
+    public int getPageCount() {
+        return pageSizes.size();
+    }
+
+    /**
+     * Returns the index of the page holding the given position.
+     *
+     * @param position Int index of the row.
+     * @return The index of the page holding the given position.
+     */
+    public int getPageIndexForPosition(int position) {
+        return findPageIndex(getRelevancePosition(position));
+    }
+
+    /**
+     * Returns the number of rows of the page with the given index.
+     *
+     * @param pageIndex Int index of the page.
+     * @return The number of rows of the page.
+     */
+    public int getPageSize(int pageIndex) {
+        return pageSizes.get(pageIndex);
+    }
+
+    /**
+     * Returns the position of the first row of the page with the given index in relevance order.
+     *
+     * @param pageIndex Int index of the page.
+     * @return The position of the first row of the page in relevance order.
+     */
+    public int getPageOffset(int pageIndex) {
+        return pageOffsets.get(pageIndex);
+    }
+
+    /**
+     * Returns the position of the given row in relevance order.
+     *
+     * @param position Int index of the row.
+     * @return The position of the row in relevance order.
+     */
+    private int getRelevancePosition(int position) {
+        return ordering != null ? ordering.getRelevancePosition(position) : position;
+    }
+
+    /**
+     * Returns the index of the page holding the given position in relevance order.
+     *
+     * @param relevancePosition Int position of the row in relevance order.
+     * @return The index of the page holding the given position.
+     */
+    private int findPageIndex(int relevancePosition) {
+
+        // Binary search for the last page whose offset is not greater than the position.
+        int low = 0;
+        int high = pageOffsets.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (pageOffsets.get(middle) <= relevancePosition) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns whether the page with the given index is held in memory.
+     *
+     * @param pageIndex Int index of the page.
+     * @return Whether the page with the given index is held in memory.
+     */
+    public boolean isPageResident(int pageIndex) {
+        return residentPages.get(pageIndex) != null;
+    }
+
+    /**
+     * Returns an int array of the indices of every page held in memory.
+     *
+     * @return An int array of the indices of every page held in memory.
+     */
+    public int[] getResidentPageIndices() {
+        int[] pageIndices = new int[residentPages.size()];
+        for (int index = 0; index < residentPages.size(); index++) {
+            pageIndices[index] = residentPages.keyAt(index);
+        }
+        return pageIndices;
+    }
+
+    /**
+     * Returns an int array holding the number of rows of every page appended to this adapter,
+     * leaving out the open page.
+     *
+     * @return An int array holding the number of rows of every complete page in this adapter.
+     */
+    public int[] getPageSizes() {
+        int[] sizes = new int[openPageIndex < 0 ? pageSizes.size() : openPageIndex];
+        for (int index = 0; index < sizes.length; index++) {
+            sizes[index] = pageSizes.get(index);
+        }
+        return sizes;
+    }
+
+    /**
+     * Appends placeholder pages with the given sizes to this adapter. Used to restore the shape of
+     * the list after a configuration change without holding the {@link Book} objects.
+     *
+     * @param sizes Int array holding the number of rows of each page to append.
+     */
+    public void appendPlaceholderPages(int[] sizes) {
+        for (int size : sizes) {
+            pageOffsets.add(count);
+            pageSizes.add(size);
+            count += size;
+        }
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Appends a new resident page to the end of this adapter.
+     *
+     * @param books {@link List} of {@link Book} objects making up the page.
+     */
+    public void appendPage(@NonNull List<Book> books) {
+        int pageIndex = pageSizes.size();
+        pageOffsets.add(count);
+        pageSizes.add(books.size());
+        count += books.size();
+        residentPages.put(pageIndex, books);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Appends a new resident page to the end of this adapter and keeps it open, so further rows
+     * can be added with {@link #extendOpenPage(List)} as they stream in.
+     *
+     * @param books {@link List} of the first {@link Book} objects of the page.
+     */
+    public void openPage(@NonNull List<Book> books) {
+        appendPage(new ArrayList<>(books));
+        openPageIndex = pageSizes.size() - 1;
+    }
+
+    /**
+     * Adds the given rows to the end of the open page.
+     *
+     * @param books {@link List} of {@link Book} objects to add to the open page.
+     */
+    public void extendOpenPage(@NonNull List<Book> books) {
+        if (openPageIndex < 0) {
+            return;
+        }
+        residentPages.get(openPageIndex).addAll(books);
+        pageSizes.set(openPageIndex, pageSizes.get(openPageIndex) + books.size());
+        count += books.size();
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Replaces the rows of the open page with the complete page and closes it.
+     *
+     * @param books {@link List} of all {@link Book} objects of the page.
+     */
+    public void closeOpenPage(@NonNull List<Book> books) {
+        if (openPageIndex < 0) {
+            return;
+        }
+        count += books.size() - pageSizes.get(openPageIndex);
+        pageSizes.set(openPageIndex, books.size());
+        residentPages.put(openPageIndex, books);
+        openPageIndex = -1;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Removes the open page and its rows, such as when the page failed after streaming part of
+     * its rows.
+     */
+    public void dropOpenPage() {
+        if (openPageIndex < 0) {
+            return;
+        }
+        count -= pageSizes.get(openPageIndex);
+        pageOffsets.remove(openPageIndex);
+        pageSizes.remove(openPageIndex);
+        residentPages.remove(openPageIndex);
+        openPageIndex = -1;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Returns the index of the page that is still streaming in, or -1.
+     *
+     * @return The index of the page that is still streaming in, or -1.
+     */
+    public int getOpenPageIndex() {
+        return openPageIndex;
+    }
+
+    /**
+     * Puts back a previously appended page that was dropped from memory. Rows beyond the original
+     * size of the page are ignored. A page with fewer rows than its original size, such as the
+     * empty page of a failed reload, is not put back, so its rows stay placeholders and the page
+     * can be reloaded again.
+     *
+     * @param pageIndex Int index of the page.
+     * @param books     {@link List} of {@link Book} objects making up the page.
+     * @return Whether the page was put back.
+     */
+    public boolean setPage(int pageIndex, @NonNull List<Book> books) {
+        if (pageIndex < 0 || pageIndex >= pageSizes.size() || pageIndex == openPageIndex) {
+            return false;
+        }
+        if (books.isEmpty() || books.size() < pageSizes.get(pageIndex)) {
+            return false;
+        }
+        residentPages.put(pageIndex, books);
+        notifyDataSetChanged();
+        return true;
+    }
+
+    /**
+     * Drops every resident page further than {@link #WINDOW_RADIUS} pages away from the given
+     * center page. The open page is never dropped.
+     *
+     * @param centerPageIndex Int index of the page the window is centered on.
+     * @return Int array of the indices of the pages that were dropped.
+     */
+    public int[] trimToWindow(int centerPageIndex) {
+        return trimToRange(centerPageIndex - WINDOW_RADIUS, centerPageIndex + WINDOW_RADIUS);
+    }
+
+    /**
+     * Drops every resident page that is not in the given set of pages. The open page is never
+     * dropped. Used when rows are shown in a {@link BookOrdering}, where the visible rows may
+     * belong to any page.
+     *
+     * @param keptPageIndices {@link SparseBooleanArray} holding true for the index of every page
+     *                        to keep.
+     * @return Int array of the indices of the pages that were dropped.
+     */
+    public int[] trimToPages(@NonNull SparseBooleanArray keptPageIndices) {
+        List<Integer> droppedPageIndices = new ArrayList<>();
+        for (int index = residentPages.size() - 1; index >= 0; index--) {
+            int pageIndex = residentPages.keyAt(index);
+            if (pageIndex != openPageIndex && !keptPageIndices.get(pageIndex)) {
+                residentPages.removeAt(index);
+                droppedPageIndices.add(pageIndex);
             }
         }
-        return books;
+        return finishTrim(droppedPageIndices);
     }
 
     /**
-     * Returns a formatted string for the authors string array member variable of a {@link Book}
-     * object.
+     * Drops every resident page outside of the given range of pages. The open page is never
+     * dropped. Passing an empty range drops every other page.
      *
-     * @param authors {@link String} array representing the authors of a {@link Book} object.
-     * @return A formatted string for the authors string array member variable of a {@link Book}
-     * object.
+     * @param firstPageIndex Int index of the first page to keep.
+     * @param lastPageIndex  Int index of the last page to keep.
+     * @return Int array of the indices of the pages that were dropped.
      */
-    private String getFormattedAuthorsString(String[] authors) {
-        StringBuilder formattedAuthorsString = new StringBuilder();
-        for (int index = 0; index < authors.length; index++) {
-            if (index > 0) {
-                formattedAuthorsString.append(", ");
+    public int[] trimToRange(int firstPageIndex, int lastPageIndex) {
+        List<Integer> droppedPageIndices = new ArrayList<>();
+        for (int index = residentPages.size() - 1; index >= 0; index--) {
+            int pageIndex = residentPages.keyAt(index);
+            if (pageIndex != openPageIndex && (pageIndex < firstPageIndex || pageIndex > lastPageIndex)) {
+                residentPages.removeAt(index);
+                droppedPageIndices.add(pageIndex);
             }
-            formattedAuthorsString.append(authors[index]);
         }
-        return formattedAuthorsString.toString();
+        return finishTrim(droppedPageIndices);
+    }
+
+    /**
+     * Notifies observers if any pages were dropped and returns their indices.
+     *
+     * @param droppedPageIndices {@link List} of the indices of the pages that were dropped.
+     * @return Int array of the indices of the pages that were dropped.
+     */
+    private int[] finishTrim(@NonNull List<Integer> droppedPageIndices) {
+        int[] dropped = new int[droppedPageIndices.size()];
+        for (int index = 0; index < dropped.length; index++) {
+            dropped[index] = droppedPageIndices.get(index);
+        }
+        if (dropped.length > 0) {
+            notifyDataSetChanged();
+        }
+        return dropped;
     }
 }
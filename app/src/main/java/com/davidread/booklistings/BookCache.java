@@ -0,0 +1,372 @@
+package com.davidread.booklistings;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link BookCache} is a utility class that stores pages of {@link Book} objects on disk, in the
+ * JSON format of a Google Books API volumes search response whatever {@link BookSource} the page
+ * came from. Each entry is keyed by a query term, a start index and a page size. A smaller page
+ * can be served from a full {@link BookLoader#PAGE_SIZE} entry holding it with
+ * {@link #getSlice(String, int, int)}. Entries older than {@link #MAX_AGE_MILLIS} are treated as
+ * missing, and the least recently written entries are deleted once the cache grows beyond
+ * {@link #MAX_SIZE_BYTES}. Entries are accessed under one lock shared by every {@link BookCache}
+ * object, and written to a temporary file first, so a reader never sees a half-written entry.
+ */
+public class BookCache {
+
+    /**
+     * {@link String} name of the directory inside the app cache directory holding the entries.
+     */
+    private static final String DIRECTORY_NAME = "book_cache";
+
+    /**
+     * long specifying how many milliseconds an entry stays fresh.
+     */
+    private static final long MAX_AGE_MILLIS = 24 * 60 * 60 * 1000;
+
+    /**
+     * long specifying how many bytes the entries may take up on disk.
+     */
+    private static final long MAX_SIZE_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * {@link String} suffix of the temporary file an entry is written to before it replaces the
+     * entry.
+     */
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /**
+     * {@link Object} locking the entries of every {@link BookCache} object in this process.
+     */
+    private static final Object LOCK = new Object();
+
+    /**
+     * {@link File} representing the directory holding the entries.
+     */
+    private final File directory;
+
+    /**
+     * Constructs a new {@link BookCache} object.
+     *
+     * @param context {@link Context} used for locating the app cache directory.
+     */
+    public BookCache(@NonNull Context context) {
+        this.directory = new File(context.getCacheDir(), DIRECTORY_NAME);
+    }
+
+    /**
+     * Returns the {@link List} of {@link Book} objects stored for the given query term, start
+     * index and page size, or null if no fresh entry exists.
+     *
+     * @param query      {@link String} representing the query term.
+     * @param startIndex int representing the start index.
+     * @param pageSize   int representing the number of results per page.
+     * @return {@link List} of {@link Book} objects stored for the given query term, start index
+     * and page size.
+     */
+    @Nullable
+    public List<Book> get(String query, int startIndex, int pageSize) {
+        String json = read(query, startIndex, pageSize);
+        if (json == null) {
+            return null;
+        }
+
+        List<Book> books = new ArrayList<>();
+        try {
+            JSONArray itemsJsonArray = new JSONObject(json).getJSONArray("items");
+            for (int itemsIndex = 0; itemsIndex < itemsJsonArray.length(); itemsIndex++) {
+                JSONObject volumeInfoJsonObject = itemsJsonArray.getJSONObject(itemsIndex).getJSONObject("volumeInfo");
+                JSONArray authorsJsonArray = volumeInfoJsonObject.getJSONArray("authors");
+                String[] authors = new String[authorsJsonArray.length()];
+                for (int authorsIndex = 0; authorsIndex < authorsJsonArray.length(); authorsIndex++) {
+                    authors[authorsIndex] = authorsJsonArray.getString(authorsIndex);
+                }
+                Book book = new Book(volumeInfoJsonObject.getString("title"), authors, volumeInfoJsonObject.getString("infoLink"));
+                book.setSourceQuery(volumeInfoJsonObject.optString("sourceQuery", null));
+                books.add(book);
+            }
+        } catch (JSONException e) {
+            Log.e(BookCache.class.getSimpleName(), "Error parsing cache entry", e);
+            return null;
+        }
+        return books;
+    }
+
+    /**
+     * Returns the {@link List} of {@link Book} objects stored for the given query term, start
+     * index and page size. If no fresh entry exists for a page smaller than
+     * {@link BookLoader#PAGE_SIZE}, its rows are taken from a fresh entry of the full page holding
+     * it, such as the pages stored by {@link CacheWarmupJobService}. Only valid for pages whose
+     * rows sit at fixed result positions, which excludes the merged pages of a batch search.
+     *
+     * @param query      {@link String} representing the query term.
+     * @param startIndex int representing the start index.
+     * @param pageSize   int representing the number of results per page.
+     * @return {@link List} of {@link Book} objects of the given page, or null if no fresh entry
+     * holds it.
+     */
+    @Nullable
+    public List<Book> getSlice(String query, int startIndex, int pageSize) {
+        List<Book> books = get(query, startIndex, pageSize);
+        if (books != null || pageSize >= BookLoader.PAGE_SIZE) {
+            return books;
+        }
+
+        // Find the full page holding the given page, and take the rows of the given page from it.
+        int fullStartIndex = startIndex - startIndex % BookLoader.PAGE_SIZE;
+        int offset = startIndex - fullStartIndex;
+        if (offset + pageSize > BookLoader.PAGE_SIZE) {
+            return null;
+        }
+        List<Book> fullBooks = get(query, fullStartIndex, BookLoader.PAGE_SIZE);
+        if (fullBooks == null || fullBooks.size() <= offset) {
+            return null;
+        }
+        return new ArrayList<>(fullBooks.subList(offset, Math.min(fullBooks.size(), offset + pageSize)));
+    }
+
+    /**
+     * Stores the given {@link List} of {@link Book} objects for the given query term, start
+     * index and page size.
+     *
+     * @param query      {@link String} representing the query term.
+     * @param startIndex int representing the start index.
+     * @param pageSize   int representing the number of results per page.
+     * @param books      {@link List} of {@link Book} objects to store.
+     */
+    public void put(String query, int startIndex, int pageSize, @NonNull List<Book> books) {
+        JSONArray itemsJsonArray = new JSONArray();
+        try {
+            for (Book book : books) {
+                JSONArray authorsJsonArray = new JSONArray();
+                for (String author : book.getAuthors()) {
+                    authorsJsonArray.put(author);
+                }
+                JSONObject volumeInfoJsonObject = new JSONObject()
+                        .put("title", book.getTitle())
+                        .put("authors", authorsJsonArray)
+                        .put("infoLink", book.getUrl())
+                        .putOpt("sourceQuery", book.getSourceQuery());
+                itemsJsonArray.put(new JSONObject().put("volumeInfo", volumeInfoJsonObject));
+            }
+            write(query, startIndex, pageSize, new JSONObject().put("items", itemsJsonArray).toString());
+        } catch (JSONException e) {
+            Log.e(BookCache.class.getSimpleName(), "Error serializing cache entry", e);
+        }
+    }
+
+    /**
+     * Returns the {@link String} JSON stored for the given query term, start index and page size,
+     * or null if no fresh entry exists.
+     *
+     * @param query      {@link String} representing the query term.
+     * @param startIndex int representing the start index.
+     * @param pageSize   int representing the number of results per page.
+     * @return {@link String} JSON stored for the given query term, start index and page size.
+     */
+    @Nullable
+    private String read(String query, int startIndex, int pageSize) {
+        synchronized (LOCK) {
+            File file = getFile(query, startIndex, pageSize);
+            if (!isFresh(query, startIndex, pageSize)) {
+                return null;
+            }
+
+            InputStream inputStream = null;
+            try {
+                inputStream = new FileInputStream(file);
+                byte[] bytes = new byte[(int) file.length()];
+                int offset = 0;
+                while (offset < bytes.length) {
+                    int read = inputStream.read(bytes, offset, bytes.length - offset);
+                    if (read < 0) {
+                        break;
+                    }
+                    offset += read;
+                }
+                return new String(bytes, 0, offset, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                Log.e(BookCache.class.getSimpleName(), "Error reading cache entry", e);
+                return null;
+            } finally {
+                closeQuietly(inputStream);
+            }
+        }
+    }
+
+    /**
+     * Stores the given {@link String} JSON for the given query term, start index and page size.
+     * The JSON is written to a temporary file, which then replaces the entry.
+     *
+     * @param query      {@link String} representing the query term.
+     * @param startIndex int representing the start index.
+     * @param pageSize   int representing the number of results per page.
+     * @param json       {@link String} JSON to store.
+     */
+    private void write(String query, int startIndex, int pageSize, @NonNull String json) {
+        synchronized (LOCK) {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                Log.e(BookCache.class.getSimpleName(), "Error creating cache directory");
+                return;
+            }
+
+            // Write the JSON to a temporary file in the same directory.
+            File file = getFile(query, startIndex, pageSize);
+            File tempFile = new File(directory, file.getName() + TEMP_FILE_SUFFIX);
+            OutputStream outputStream = null;
+            boolean written = false;
+            try {
+                outputStream = new FileOutputStream(tempFile);
+                outputStream.write(json.getBytes(StandardCharsets.UTF_8));
+                written = true;
+            } catch (IOException e) {
+                Log.e(BookCache.class.getSimpleName(), "Error writing cache entry", e);
+            } finally {
+                closeQuietly(outputStream);
+            }
+
+            // Replace the entry with the temporary file, or delete it if it is incomplete.
+            if (!written || !tempFile.renameTo(file)) {
+                if (written) {
+                    Log.e(BookCache.class.getSimpleName(), "Error replacing cache entry " + file.getName());
+                }
+                if (!tempFile.delete()) {
+                    Log.e(BookCache.class.getSimpleName(), "Error deleting cache entry " + tempFile.getName());
+                }
+                return;
+            }
+
+            trimToSize();
+        }
+    }
+
+    /**
+     * Returns whether a fresh entry exists for the given query term, start index and page size.
+     *
+     * @param query      {@link String} representing the query term.
+     * @param startIndex int representing the start index.
+     * @param pageSize   int representing the number of results per page.
+     * @return Whether a fresh entry exists for the given query term, start index and page size.
+     */
+    public boolean isFresh(String query, int startIndex, int pageSize) {
+        synchronized (LOCK) {
+            File file = getFile(query, startIndex, pageSize);
+            return file.isFile() && System.currentTimeMillis() - file.lastModified() < MAX_AGE_MILLIS;
+        }
+    }
+
+    /**
+     * Deletes every entry.
+     */
+    public void clear() {
+        synchronized (LOCK) {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                if (!file.delete()) {
+                    Log.e(BookCache.class.getSimpleName(), "Error deleting cache entry " + file.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link File} holding the entry for the given query term, start index and page
+     * size.
+     *
+     * @param query      {@link String} representing the query term.
+     * @param startIndex int representing the start index.
+     * @param pageSize   int representing the number of results per page.
+     * @return {@link File} holding the entry for the given query term, start index and page size.
+     */
+    private File getFile(String query, int startIndex, int pageSize) {
+        String key = query.trim().toLowerCase(Locale.ROOT) + "\n" + startIndex + "\n" + pageSize;
+        StringBuilder fileName = new StringBuilder();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            for (byte b : digest) {
+                fileName.append(String.format(Locale.ROOT, "%02x", b));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            fileName.append(Integer.toHexString(key.hashCode()));
+        }
+        return new File(directory, fileName.append(".json").toString());
+    }
+
+    /**
+     * Deletes the oldest entries until the entries fit into {@link #MAX_SIZE_BYTES}. Must be
+     * called while holding {@link #LOCK}.
+     */
+    private void trimToSize() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= MAX_SIZE_BYTES) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return Long.compare(file1.lastModified(), file2.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (size <= MAX_SIZE_BYTES) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    /**
+     * Closes the given {@link Closeable} and logs any error.
+     *
+     * @param closeable {@link Closeable} to close.
+     */
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            Log.e(BookCache.class.getSimpleName(), "Error closing cache stream", e);
+        }
+    }
+}
@@ -1,53 +1,45 @@
 package com.davidread.booklistings;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.loader.content.AsyncTaskLoader;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * {@link BookLoader} is a utility class that provides an {@link AsyncTaskLoader} for requesting
- * and retrieving data from the Google Books API. More specifically, it allows you to perform a
- * volumes search for book data, where you can specify a query term and a start index for
- * pagination.
+ * and retrieving data from a {@link BookSource}, the Google Books API by default. More
+ * specifically, it allows you to perform a volumes search for book data, where you can specify a
+ * query term and a start index for pagination. The response is parsed as it streams in, and
+ * batches of parsed {@link Book} objects are published to an {@link OnBooksParsedListener} on the
+ * main thread before the load finishes.
  */
 public class BookLoader extends AsyncTaskLoader<List<Book>> {
 
     /**
-     * {@link String} specifying the base Google Books API URL for performing a volumes search.
+     * int specifying the maximum number of results a single volumes search may return. It is the
+     * largest page size a {@link BookLoader} fetches.
      */
-    private static final String BASE_URL = "https://www.googleapis.com/books/v1/volumes";
+    public static final int PAGE_SIZE = 40;
 
     /**
-     * {@link String} URL parameter specifying the maximum number of results the volumes search
-     * should return.
+     * long specifying how many milliseconds the default {@link BookSource} waits for the primary
+     * endpoint before hedging to the mirror.
      */
-    private static final String MAX_RESULTS_URL_PARAMETER = "maxResults=40";
+    private static final long HEDGE_DELAY_MILLIS = 1000;
 
     /**
-     * {@link String} URL parameter specifying what specific JSON fields the volumes search should
-     * return.
+     * {@link BookSource} every {@link BookLoader} fetches pages from. May be replaced for testing.
      */
-    private static final String FIELDS_URL_PARAMETER = "fields=items(volumeInfo/title,volumeInfo/authors,volumeInfo/infoLink)";
+    private static volatile BookSource bookSource = createDefaultBookSource();
 
     /**
      * {@link String} specifying the query term for the volumes search.
@@ -59,22 +51,41 @@ public class BookLoader extends AsyncTaskLoader<List<Book>> {
      */
     private final int startIndex;
 
+    /**
+     * int specifying the number of results per page for the volumes search.
+     */
+    private final int pageSize;
+
+    /**
+     * {@link Handler} used for publishing parsed {@link Book} objects on the main thread.
+     */
+    private final Handler mainHandler;
+
     /**
      * {@link List} returned from the Google Books API volumes search.
      */
     private List<Book> books;
 
+    /**
+     * {@link OnBooksParsedListener} notified of parsed {@link Book} objects during the load.
+     */
+    private volatile OnBooksParsedListener onBooksParsedListener;
+
     /**
      * Constructs a new {@link BookLoader} object.
      *
      * @param context    {@link Context} for the superclass constructor.
      * @param query      {@link String} specifying the query term for the volumes search.
      * @param startIndex int specifying the start index for the volumes search.
+     * @param pageSize   int specifying the number of results per page for the volumes search, up
+     *                   to {@link #PAGE_SIZE}.
      */
-    public BookLoader(@NonNull Context context, String query, int startIndex) {
+    public BookLoader(@NonNull Context context, String query, int startIndex, int pageSize) {
         super(context);
         this.query = query;
         this.startIndex = startIndex;
+        this.pageSize = pageSize;
+        this.mainHandler = new Handler(Looper.getMainLooper());
         this.books = null;
     }
 
@@ -92,7 +103,9 @@ public class BookLoader extends AsyncTaskLoader<List<Book>> {
      * Callback method invoked to perform the actual load on a worker thread and return the result.
      * It returns a {@link List} of {@link Book} objects fetched for a Google Books API volumes
      * search. First, it'll try to return a {@link List} saved in this {@link BookLoader} object.
-     * If no such list exists, it will perform a network request to fetch the appropriate data.
+     * If no such list exists, it will load the page with
+     * {@link #loadPage(Context, String, int, int, BookSource.OnBatchListener)} and save it if it
+     * holds results.
      *
      * @return A {@link List} of {@link Book} objects returned from the Google Books API volumes
      * search.
@@ -101,24 +114,82 @@ public class BookLoader extends AsyncTaskLoader<List<Book>> {
     @Override
     public List<Book> loadInBackground() {
 
-        // If a List is saved in this BookLoader, return it and do not perform a network request.
+        /* If a List is saved in this BookLoader, return it and do not perform a network request.
+         * Its row text is laid out again if the text metrics changed since. */
         if (books != null) {
+            RowTextPrecomputer.precompute(books);
             return books;
         }
 
-        // Construct URL object for network request.
-        URL url = constructQueryUrl(query, startIndex);
+        /* Load the page, publishing the batches parsed while it streams in. Their row text is
+         * laid out before they are published. */
+        List<Book> loadedBooks = loadPage(getContext(), query, startIndex, pageSize, new BookSource.OnBatchListener() {
+            @Override
+            public void onBatch(@NonNull BookSource source, @NonNull List<Book> batch) {
+                publishBooks(batch);
+            }
+        });
 
-        // Perform network request.
-        String json = null;
+        // Save the List only if it holds results, so a failed load is retried on restart.
+        if (loadedBooks == null) {
+            return new ArrayList<>();
+        }
+        if (!loadedBooks.isEmpty()) {
+            books = loadedBooks;
+        }
+        return loadedBooks;
+    }
+
+    /**
+     * Returns a page of {@link Book} objects for the given query term. It will try to parse a
+     * response stored in the {@link BookCache} first, including a larger page holding it.
+     * Otherwise, it will fetch the page from the {@link BookSource}, parsing the response as it
+     * streams in, and store it in the {@link BookCache} if it holds results. The row text of every
+     * returned {@link Book} object is laid out in advance. Must be called from a worker thread.
+     *
+     * @param context         {@link Context} used for locating the {@link BookCache}.
+     * @param query           {@link String} specifying the query term for the volumes search.
+     * @param startIndex      int specifying the start index for the volumes search.
+     * @param pageSize        int specifying the number of results per page for the volumes search.
+     * @param onBatchListener {@link BookSource.OnBatchListener} notified of every batch parsed
+     *                        from a fetched response, after its row text is laid out, or null.
+     * @return A {@link List} of {@link Book} objects, or null if the page could not be fetched.
+     */
+    @Nullable
+    static List<Book> loadPage(@NonNull Context context, String query, int startIndex, int pageSize, @Nullable final BookSource.OnBatchListener onBatchListener) {
+
+        // If a fresh page is cached, return it and do not perform a network request.
+        BookCache bookCache = new BookCache(context);
+        List<Book> cachedBooks = bookCache.getSlice(query, startIndex, pageSize);
+        if (cachedBooks != null) {
+            RowTextPrecomputer.precompute(cachedBooks);
+            return cachedBooks;
+        }
+
+        /* Fetch the page, parsing the response as it streams in, and cache it if it holds results.
+         * The row text of every batch is laid out before it is passed on. */
+        BookSource.OnBatchListener precomputingBatchListener = new BookSource.OnBatchListener() {
+            @Override
+            public void onBatch(@NonNull BookSource source, @NonNull List<Book> batch) {
+                RowTextPrecomputer.precompute(batch);
+                if (onBatchListener != null) {
+                    onBatchListener.onBatch(source, batch);
+                }
+            }
+        };
+        BookSource currentBookSource = bookSource;
+        List<Book> books;
         try {
-            json = getJsonFromUrl(url);
+            books = currentBookSource.fetchPage(query, startIndex, pageSize, precomputingBatchListener).getBooks();
         } catch (IOException e) {
-            Log.e(BookLoader.class.getSimpleName(), "Error closing input stream", e);
+            Log.e(BookLoader.class.getSimpleName(), "Error fetching page from " + currentBookSource.getName(), e);
+            return null;
         }
-
-        // Return extracted List of Book objects from the JSON string.
-        return extractBooksFromJson(json);
+        if (!books.isEmpty()) {
+            bookCache.put(query, startIndex, pageSize, books);
+        }
+        RowTextPrecomputer.precompute(books);
+        return books;
     }
 
     /**
@@ -142,172 +213,99 @@ public class BookLoader extends AsyncTaskLoader<List<Book>> {
     }
 
     /**
-     * Returns a {@link URL} object for performing a Google Books API volumes search given a query
-     * term and start index.
+     * Returns an int representing the number of results per page used for the Google Books API
+     * volumes search.
      *
-     * @param query      {@link String} representing the query term.
-     * @param startIndex int representing the start index.
-     * @return {@link URL} object for performing a Google Books API volumes search.
+     * @return int representing the number of results per page used for the Google Books API
+     * volumes search.
      */
-    private URL constructQueryUrl(String query, int startIndex) {
-
-        // Construct string URL.
-        String stringUrl = "";
-        try {
-            String queryUrlParameter = "q=" + URLEncoder.encode(query, StandardCharsets.UTF_8.name());
-            String startIndexUrlParameter = "startIndex=" + startIndex;
-            stringUrl = BASE_URL + "?" + queryUrlParameter + "&" + startIndexUrlParameter + "&" + MAX_RESULTS_URL_PARAMETER + "&" + FIELDS_URL_PARAMETER;
-        } catch (UnsupportedEncodingException e) {
-            Log.e(BookLoader.class.getSimpleName(), "Error encoding query term for string URL", e);
-        }
-
-        // Construct URL object.
-        URL url = null;
-        try {
-            url = new URL(stringUrl);
-        } catch (MalformedURLException e) {
-            Log.e(BookLoader.class.getSimpleName(), "Error constructing URL object", e);
-        }
-
-        return url;
+    public int getPageSize() {
+        return pageSize;
     }
 
     /**
-     * Returns a {@link String} JSON response fetched from the network request made using the
-     * given {@link URL} object.
+     * Sets the {@link OnBooksParsedListener} notified of parsed {@link Book} objects during the
+     * load. Must be called from the main thread.
      *
-     * @param url {@link URL} object to make a network request on.
-     * @return {@link String} JSON response fetched from the network request.
+     * @param onBooksParsedListener {@link OnBooksParsedListener} to notify, or null.
      */
-    private String getJsonFromUrl(URL url) throws IOException {
-
-        // Initialize objects used for network request.
-        HttpURLConnection httpURLConnection = null;
-        InputStream inputStream = null;
-        String json = "";
-
-        try {
-            // Setup the network request and execute it.
-            httpURLConnection = (HttpURLConnection) url.openConnection();
-            httpURLConnection.setReadTimeout(10000);
-            httpURLConnection.setConnectTimeout(15000);
-            httpURLConnection.setRequestMethod("GET");
-            httpURLConnection.connect();
-
-            /* If the request is successful, get the input stream from the request and convert it
-             * into a JSON string. */
-            if (httpURLConnection.getResponseCode() == 200) {
-                inputStream = httpURLConnection.getInputStream();
-                json = getJsonFromInputStream(inputStream);
-            } else {
-                Log.e(BookLoader.class.getSimpleName(), "Network request returned with response code " + httpURLConnection.getResponseCode());
-            }
-        } catch (IOException e) {
-            Log.e(BookLoader.class.getSimpleName(), "Error making network request", e);
-        } finally {
-            // Cleanup objects used for network request.
-            if (httpURLConnection != null) {
-                httpURLConnection.disconnect();
-            }
-            if (inputStream != null) {
-                inputStream.close();
-            }
-        }
-
-        return json;
+    public void setOnBooksParsedListener(@Nullable OnBooksParsedListener onBooksParsedListener) {
+        this.onBooksParsedListener = onBooksParsedListener;
     }
 
     /**
-     * Returns a {@link String} JSON response given an {@link InputStream} fetched from a network
-     * request.
+     * Returns the {@link BookSource} every {@link BookLoader} fetches pages from.
      *
-     * @param inputStream {@link InputStream} object fetched from a network request.
-     * @return A {@link String} JSON response.
+     * @return The {@link BookSource} every {@link BookLoader} fetches pages from.
      */
-    private String getJsonFromInputStream(InputStream inputStream) throws IOException {
-        StringBuilder stringBuilder = new StringBuilder();
-        InputStreamReader inputStreamReader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
-        BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
-        String bufferedReaderLine = bufferedReader.readLine();
-        while (bufferedReaderLine != null) {
-            stringBuilder.append(bufferedReaderLine);
-            bufferedReaderLine = bufferedReader.readLine();
-        }
-        return stringBuilder.toString();
+    @NonNull
+    static BookSource getBookSource() {
+        return bookSource;
     }
 
     /**
-     * Parses a {@link String} JSON response received from a Google Books API volumes search and
-     * returns it in a {@link List} of {@link Book} objects.
+     * Sets the {@link BookSource} every following load fetches pages from, such as a source
+     * backed by a local fake server.
      *
-     * @param json {@link String} JSON response from a Google Books API volumes search.
-     * @return {@link List} of {@link Book} objects parsed from a JSON response.
+     * @param bookSource {@link BookSource} to fetch pages from.
      */
-    private List<Book> extractBooksFromJson(String json) {
-
-        List<Book> books = new ArrayList<>();
+    @VisibleForTesting
+    static void setBookSource(@NonNull BookSource bookSource) {
+        BookLoader.bookSource = bookSource;
+    }
 
-        // Get items JSON array containing the results.
-        JSONArray itemsJsonArray = null;
-        try {
-            JSONObject rootJsonObject = new JSONObject(json);
-            itemsJsonArray = rootJsonObject.getJSONArray("items");
-        } catch (JSONException e) {
-            Log.e(BookLoader.class.getSimpleName(), "Error parsing items JSON array", e);
+    /**
+     * Returns the default {@link BookSource}. It sends requests to the configured Google Books
+     * endpoint. If a separate mirror is configured, slow or failed requests are hedged to it.
+     *
+     * @return The default {@link BookSource}.
+     */
+    @NonNull
+    static BookSource createDefaultBookSource() {
+        GoogleBooksSource googleBooksSource = new GoogleBooksSource("google-books", BuildConfig.BOOKS_BASE_URL);
+        if (BuildConfig.BOOKS_MIRROR_URL.isEmpty() || BuildConfig.BOOKS_MIRROR_URL.equals(BuildConfig.BOOKS_BASE_URL)) {
+            return googleBooksSource;
         }
+        return new HedgedBookSource(
+                googleBooksSource,
+                new GoogleBooksSource("google-books-mirror", BuildConfig.BOOKS_MIRROR_URL),
+                HEDGE_DELAY_MILLIS);
+    }
 
-        // Return early if a null items JSON array is parsed.
-        if (itemsJsonArray == null) {
-            return books;
+    /**
+     * Posts the given batch of parsed {@link Book} objects to the {@link OnBooksParsedListener}
+     * on the main thread. The batch is dropped if the listener changes or this
+     * {@link BookLoader} stops before it is delivered.
+     *
+     * @param batch {@link List} of parsed {@link Book} objects.
+     */
+    void publishBooks(final List<Book> batch) {
+        final OnBooksParsedListener listener = onBooksParsedListener;
+        if (listener == null) {
+            return;
         }
-
-        // Iterate through each item in the items JSON array.
-        for (int itemsIndex = 0; itemsIndex < itemsJsonArray.length(); itemsIndex++) {
-
-            // Get the volumeInfo JSON object for this result.
-            JSONObject volumeInfoJsonObject = null;
-            try {
-                volumeInfoJsonObject = itemsJsonArray.getJSONObject(itemsIndex).getJSONObject("volumeInfo");
-            } catch (JSONException e) {
-                Log.e(BookLoader.class.getSimpleName(), "Error parsing the volumeInfo JSON object for the item with index " + itemsIndex, e);
-            }
-
-            // Skip to the next item in the items JSON array if a null volumeInfo JSON object is parsed.
-            if (volumeInfoJsonObject == null) {
-                continue;
-            }
-
-            // Get the properties for this result.
-            String title = "";
-            try {
-                title = volumeInfoJsonObject.getString("title");
-            } catch (JSONException e) {
-                Log.e(BookLoader.class.getSimpleName(), "Error parsing the title JSON property for the item with index " + itemsIndex, e);
-            }
-
-            String[] authors = new String[]{""};
-            try {
-                JSONArray authorsJsonArray = volumeInfoJsonObject.getJSONArray("authors");
-                authors = new String[authorsJsonArray.length()];
-                for (int authorsIndex = 0; authorsIndex < authorsJsonArray.length(); authorsIndex++) {
-                    authors[authorsIndex] = authorsJsonArray.getString(authorsIndex);
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (isStarted() && onBooksParsedListener == listener) {
+                    listener.onBooksParsed(BookLoader.this, batch);
                 }
-            } catch (JSONException e) {
-                Log.e(BookLoader.class.getSimpleName(), "Error parsing the authors JSON property for the item with index " + itemsIndex, e);
             }
+        });
+    }
 
-            String url = "";
-            try {
-                url = volumeInfoJsonObject.getString("infoLink");
-            } catch (JSONException e) {
-                Log.e(BookLoader.class.getSimpleName(), "Error parsing the url JSON property for the item with index " + itemsIndex, e);
-            }
-
-            // Add a new Book object for this result.
-            books.add(new Book(title, authors, url));
-        }
-
-        this.books = books;
-        return books;
+    /**
+     * {@link OnBooksParsedListener} is notified on the main thread of batches of {@link Book}
+     * objects parsed while a {@link BookLoader} is still loading.
+     */
+    public interface OnBooksParsedListener {
+
+        /**
+         * Callback method invoked when a batch of {@link Book} objects has been parsed.
+         *
+         * @param bookLoader {@link BookLoader} that parsed the batch.
+         * @param books      {@link List} of {@link Book} objects in the batch, in result order.
+         */
+        void onBooksParsed(@NonNull BookLoader bookLoader, @NonNull List<Book> books);
     }
 }
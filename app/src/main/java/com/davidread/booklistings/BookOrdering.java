@@ -0,0 +1,112 @@
+package com.davidread.booklistings;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * {@link BookOrdering} is an immutable, precomputed view of the loaded results in a different
+ * order than relevance, split into groups. Each row of the view maps to the position of the same
+ * row in relevance order, so {@link BookAdapter} can switch between views without touching its
+ * pages. Orderings are computed by {@link BookOrderings}.
+ */
+public class BookOrdering {
+
+    /**
+     * int view of the results in relevance order, as returned by the API.
+     */
+    public static final int VIEW_RELEVANCE = 0;
+
+    /**
+     * int view of the results sorted and grouped by title.
+     */
+    public static final int VIEW_TITLE = 1;
+
+    /**
+     * int view of the results sorted and grouped by first author.
+     */
+    public static final int VIEW_FIRST_AUTHOR = 2;
+
+    /**
+     * int view of the results sorted and grouped by number of authors.
+     */
+    public static final int VIEW_AUTHOR_COUNT = 3;
+
+    /**
+     * int representing the view this ordering implements.
+     */
+    private final int view;
+
+    /**
+     * int array holding the relevance position of every row of the view.
+     */
+    private final int[] relevancePositions;
+
+    /**
+     * int array holding the position of the first row of every group, in ascending order.
+     */
+    private final int[] groupStarts;
+
+    /**
+     * {@link String} array holding the label of every group.
+     */
+    private final String[] groupLabels;
+
+    /**
+     * Constructs a new {@link BookOrdering} object. The given arrays must not be changed
+     * afterwards.
+     *
+     * @param view               int representing the view this ordering implements.
+     * @param relevancePositions int array holding the relevance position of every row.
+     * @param groupStarts        int array holding the position of the first row of every group.
+     * @param groupLabels        {@link String} array holding the label of every group.
+     */
+    public BookOrdering(int view, int[] relevancePositions, int[] groupStarts, String[] groupLabels) {
+        this.view = view;
+        this.relevancePositions = relevancePositions;
+        this.groupStarts = groupStarts;
+        this.groupLabels = groupLabels;
+    }
+
+    /**
+     * Returns the view this ordering implements.
+     *
+     * @return One of {@link #VIEW_TITLE}, {@link #VIEW_FIRST_AUTHOR} or
+     * {@link #VIEW_AUTHOR_COUNT}.
+     */
+    public int getView() {
+        return view;
+    }
+
+    /**
+     * Returns the number of rows in this ordering.
+     *
+     * @return The number of rows in this ordering.
+     */
+    public int size() {
+        return relevancePositions.length;
+    }
+
+    /**
+     * Returns the relevance position of the row at the given position.
+     *
+     * @param position Int index of the row in this ordering.
+     * @return The relevance position of the row.
+     */
+    public int getRelevancePosition(int position) {
+        return relevancePositions[position];
+    }
+
+    /**
+     * Returns the label of the group starting at the given position, or null if no group starts
+     * there.
+     *
+     * @param position Int index of the row in this ordering.
+     * @return {@link String} label of the group starting at the given position, or null.
+     */
+    @Nullable
+    public String getGroupLabel(int position) {
+        int groupIndex = Arrays.binarySearch(groupStarts, position);
+        return groupIndex >= 0 ? groupLabels[groupIndex] : null;
+    }
+}
@@ -0,0 +1,510 @@
+package com.davidread.booklistings;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * {@link BookOrderings} maintains a {@link BookOrdering} for every view other than relevance over
+ * the pages appended to a {@link BookAdapter}. All work runs on a worker thread: each appended
+ * page is sorted on its own and merged into the previous orderings, so a page costs time linear in
+ * the number of rows instead of a full sort. Only the rows added or changed since the last update
+ * are visited, and the group labels of a row are only computed when it is added or changed. Once
+ * the list grows past
+ * {@link #PARALLEL_THRESHOLD} rows, the views are computed in parallel. The finished orderings are
+ * delivered to an {@link OnOrderingsUpdatedListener} on the main thread. Rows are identified by
+ * their position in relevance order.
+ */
+public class BookOrderings {
+
+    /**
+     * int specifying how many views are maintained, including relevance, which needs no ordering.
+     */
+    public static final int VIEW_COUNT = 4;
+
+    /**
+     * int specifying the number of rows above which the views are computed in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 2000;
+
+    /**
+     * {@link String} label of the group of titles that do not start with a letter.
+     */
+    private static final String OTHER_TITLES_LABEL = "#";
+
+    /**
+     * {@link ExecutorService} running the updates one at a time, in the order they were
+     * requested.
+     */
+    private final ExecutorService updateExecutor;
+
+    /**
+     * {@link ExecutorService} computing the views of an update in parallel.
+     */
+    private final ExecutorService viewExecutor;
+
+    /**
+     * {@link Handler} used for notifying the listener on the main thread.
+     */
+    private final Handler mainHandler;
+
+    /**
+     * {@link Context} used for reading the {@link BookCache} and the group labels.
+     */
+    private final Context context;
+
+    /*
+     * The following state is only used from the update thread, and from the view threads while
+     * the update thread waits for them.
+     */
+
+    /**
+     * {@link String} array holding the lower case title of every row by relevance position.
+     */
+    private String[] titleKeys;
+
+    /**
+     * {@link String} array holding the lower case first author of every row by relevance
+     * position.
+     */
+    private String[] firstAuthorKeys;
+
+    /**
+     * {@link String} array holding the first author of every row by relevance position, or null
+     * if the author is unknown.
+     */
+    private String[] firstAuthors;
+
+    /**
+     * int array holding the number of authors of every row by relevance position.
+     */
+    private int[] authorCounts;
+
+    /**
+     * {@link String} array holding, for every view other than relevance, the label of the group
+     * the row at every relevance position belongs to, indexed by view and then by position.
+     */
+    private final String[][] groupLabels;
+
+    /**
+     * Boolean array holding whether the row at every relevance position has been added.
+     */
+    private boolean[] present;
+
+    /**
+     * Boolean array holding whether the row at every relevance position is among the pending
+     * rows.
+     */
+    private boolean[] pending;
+
+    /**
+     * Boolean array holding whether the sort keys of the row at every relevance position changed
+     * since the last update, such as the rows of a page reloaded with different results.
+     */
+    private boolean[] changed;
+
+    /**
+     * {@link List} of the relevance positions of rows added or changed since the last update.
+     */
+    private final List<Integer> pendingPositions;
+
+    /**
+     * {@link BookOrdering} array holding the current ordering of every view, indexed by view.
+     */
+    private final BookOrdering[] orderings;
+
+    /**
+     * {@link OnOrderingsUpdatedListener} notified of updated orderings, or null. Only used from the
+     * main thread.
+     */
+    @Nullable
+    private OnOrderingsUpdatedListener onOrderingsUpdatedListener;
+
+    /**
+     * Constructs a new {@link BookOrderings} object without any rows.
+     *
+     * @param context {@link Context} used for reading the {@link BookCache} and the group labels.
+     */
+    public BookOrderings(@NonNull Context context) {
+        this.updateExecutor = Executors.newSingleThreadExecutor();
+        this.viewExecutor = Executors.newFixedThreadPool(VIEW_COUNT - 1);
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.context = context.getApplicationContext();
+        this.titleKeys = new String[0];
+        this.firstAuthorKeys = new String[0];
+        this.firstAuthors = new String[0];
+        this.authorCounts = new int[0];
+        this.groupLabels = new String[VIEW_COUNT][0];
+        this.present = new boolean[0];
+        this.pending = new boolean[0];
+        this.changed = new boolean[0];
+        this.pendingPositions = new ArrayList<>();
+        this.orderings = new BookOrdering[VIEW_COUNT];
+        for (int view = BookOrdering.VIEW_TITLE; view < VIEW_COUNT; view++) {
+            orderings[view] = new BookOrdering(view, new int[0], new int[0], new String[0]);
+        }
+    }
+
+    /**
+     * Sets the {@link OnOrderingsUpdatedListener} notified of updated orderings. Must be called
+     * from the main thread.
+     *
+     * @param onOrderingsUpdatedListener {@link OnOrderingsUpdatedListener} to notify, or null.
+     */
+    public void setOnOrderingsUpdatedListener(@Nullable OnOrderingsUpdatedListener onOrderingsUpdatedListener) {
+        this.onOrderingsUpdatedListener = onOrderingsUpdatedListener;
+    }
+
+    /**
+     * Adds the rows of a completed page to the orderings. A page may be added again after it was
+     * reloaded. Rows whose sort keys did not change are skipped, and rows that now hold a
+     * different {@link Book} object are moved to their new place.
+     *
+     * @param pageOffset Int relevance position of the first row of the page.
+     * @param books      {@link List} of {@link Book} objects making up the page.
+     */
+    public void addPage(final int pageOffset, @NonNull List<Book> books) {
+        final List<Book> page = new ArrayList<>(books);
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                addRows(pageOffset, page);
+                update();
+            }
+        });
+    }
+
+    /**
+     * Adds the rows of the given pages from the {@link BookCache}. Used to rebuild the orderings
+     * after a configuration change, when the {@link BookAdapter} only holds placeholders. Pages
+     * missing from the cache are left out until they are added with {@link #addPage(int, List)}.
+     *
+     * @param query     {@link String} representing the query term of the pages.
+     * @param pageSize  int representing the number of results requested per page.
+     * @param pageSizes int array holding the number of rows of every page.
+     */
+    public void addCachedPages(final String query, final int pageSize, @NonNull int[] pageSizes) {
+        final int[] sizes = pageSizes.clone();
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                // Pages of a single query term may also be read from a larger cached page.
+                BookCache bookCache = new BookCache(context);
+                boolean batchSearch = BatchBookLoader.parseQueries(query).size() > 1;
+                int pageOffset = 0;
+                for (int pageIndex = 0; pageIndex < sizes.length; pageIndex++) {
+                    int startIndex = pageIndex * pageSize;
+                    List<Book> books = batchSearch ? bookCache.get(query, startIndex, pageSize) : bookCache.getSlice(query, startIndex, pageSize);
+                    if (books != null) {
+                        addRows(pageOffset, books.subList(0, Math.min(books.size(), sizes[pageIndex])));
+                    }
+                    pageOffset += sizes[pageIndex];
+                }
+                update();
+            }
+        });
+    }
+
+    /**
+     * Stops the worker threads. No listener is notified afterwards. Must be called from the main
+     * thread.
+     */
+    public void shutdown() {
+        onOrderingsUpdatedListener = null;
+        updateExecutor.shutdownNow();
+        viewExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs the given update on the update thread unless this object has been shut down.
+     *
+     * @param update {@link Runnable} to run.
+     */
+    private void execute(@NonNull Runnable update) {
+        if (!updateExecutor.isShutdown()) {
+            updateExecutor.execute(update);
+        }
+    }
+
+    /**
+     * Records the sort keys and group labels of the given rows, and marks them as pending. Rows
+     * that were added before with the same sort keys are skipped, and rows that were added before
+     * with other sort keys are recorded as changed. Must be called from the update thread.
+     *
+     * @param pageOffset Int relevance position of the first row.
+     * @param books      {@link List} of {@link Book} objects making up the rows.
+     */
+    private void addRows(int pageOffset, @NonNull List<Book> books) {
+        ensureCapacity(pageOffset + books.size());
+        for (int index = 0; index < books.size(); index++) {
+            int position = pageOffset + index;
+            Book book = books.get(index);
+            String title = book.getTitle() != null ? book.getTitle().trim() : "";
+            String titleKey = title.toLowerCase(Locale.getDefault());
+
+            // Books without authors are parsed with a single empty author.
+            int authorCount = 0;
+            String firstAuthor = null;
+            if (book.getAuthors() != null) {
+                for (String author : book.getAuthors()) {
+                    if (author != null && !author.trim().isEmpty()) {
+                        if (firstAuthor == null) {
+                            firstAuthor = author.trim();
+                        }
+                        authorCount++;
+                    }
+                }
+            }
+
+            // Skip a row that was added before with the same sort keys and group labels.
+            if (present[position]) {
+                if (titleKey.equals(titleKeys[position]) && authorCount == authorCounts[position]
+                        && (firstAuthor == null ? firstAuthors[position] == null : firstAuthor.equals(firstAuthors[position]))) {
+                    continue;
+                }
+                changed[position] = true;
+            }
+            titleKeys[position] = titleKey;
+            firstAuthors[position] = firstAuthor;
+            firstAuthorKeys[position] = firstAuthor != null ? firstAuthor.toLowerCase(Locale.getDefault()) : null;
+            authorCounts[position] = authorCount;
+            for (int view = BookOrdering.VIEW_TITLE; view < VIEW_COUNT; view++) {
+                groupLabels[view][position] = getGroupLabel(view, position);
+            }
+            present[position] = true;
+            if (!pending[position]) {
+                pending[position] = true;
+                pendingPositions.add(position);
+            }
+        }
+    }
+
+    /**
+     * Grows the key arrays to hold at least the given number of rows.
+     *
+     * @param capacity Int number of rows the key arrays must hold.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= present.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, present.length * 2);
+        titleKeys = Arrays.copyOf(titleKeys, newCapacity);
+        firstAuthorKeys = Arrays.copyOf(firstAuthorKeys, newCapacity);
+        firstAuthors = Arrays.copyOf(firstAuthors, newCapacity);
+        authorCounts = Arrays.copyOf(authorCounts, newCapacity);
+        for (int view = BookOrdering.VIEW_TITLE; view < VIEW_COUNT; view++) {
+            groupLabels[view] = Arrays.copyOf(groupLabels[view], newCapacity);
+        }
+        present = Arrays.copyOf(present, newCapacity);
+        pending = Arrays.copyOf(pending, newCapacity);
+        changed = Arrays.copyOf(changed, newCapacity);
+    }
+
+    /**
+     * Merges the pending rows into the ordering of every view, then delivers the orderings to the
+     * listener on the main thread. Changed rows are taken out of the orderings first so they are
+     * merged again at their new place. The rows stay pending if the update fails. Must be called
+     * from the update thread.
+     */
+    private void update() {
+
+        // Collect the rows added or changed since the last update.
+        if (pendingPositions.isEmpty()) {
+            return;
+        }
+        final Integer[] newPositions = pendingPositions.toArray(new Integer[0]);
+        BookOrdering titleOrdering = orderings[BookOrdering.VIEW_TITLE];
+
+        // Compute the views, in parallel once the list is large.
+        final BookOrdering[] updatedOrderings = new BookOrdering[VIEW_COUNT];
+        if (titleOrdering.size() + newPositions.length < PARALLEL_THRESHOLD) {
+            for (int view = BookOrdering.VIEW_TITLE; view < VIEW_COUNT; view++) {
+                updatedOrderings[view] = merge(orderings[view], newPositions.clone(), changed);
+            }
+        } else {
+            List<Future<BookOrdering>> futures = new ArrayList<>();
+            for (int view = BookOrdering.VIEW_TITLE; view < VIEW_COUNT; view++) {
+                final BookOrdering ordering = orderings[view];
+                futures.add(viewExecutor.submit(new Callable<BookOrdering>() {
+                    @Override
+                    public BookOrdering call() {
+                        return merge(ordering, newPositions.clone(), changed);
+                    }
+                }));
+            }
+            try {
+                for (int view = BookOrdering.VIEW_TITLE; view < VIEW_COUNT; view++) {
+                    updatedOrderings[view] = futures.get(view - BookOrdering.VIEW_TITLE).get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                Log.e(BookOrderings.class.getSimpleName(), "Error computing orderings", e);
+                return;
+            }
+        }
+        System.arraycopy(updatedOrderings, 0, orderings, 0, VIEW_COUNT);
+        for (int position : newPositions) {
+            pending[position] = false;
+            changed[position] = false;
+        }
+        pendingPositions.clear();
+
+        // Deliver the orderings on the main thread.
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (onOrderingsUpdatedListener != null) {
+                    onOrderingsUpdatedListener.onOrderingsUpdated(updatedOrderings);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a new {@link BookOrdering} holding the rows of the given ordering that did not
+     * change and the given new rows, sorted by the view of the given ordering.
+     *
+     * @param ordering     {@link BookOrdering} to merge the new rows into.
+     * @param newPositions {@link Integer} array of the relevance positions of the new rows. It is
+     *                     sorted in place.
+     * @param changed      Boolean array holding true for the relevance position of every row of
+     *                     the given ordering to leave out, since it is among the new rows.
+     * @return A new {@link BookOrdering} holding the rows of both.
+     */
+    private BookOrdering merge(@NonNull BookOrdering ordering, @NonNull Integer[] newPositions, @NonNull boolean[] changed) {
+        int view = ordering.getView();
+        Comparator<Integer> comparator = getComparator(view);
+        Arrays.sort(newPositions, comparator);
+
+        // Leave out the old rows that changed. The others are still sorted.
+        int[] oldPositions = new int[ordering.size()];
+        int oldCount = 0;
+        for (int index = 0; index < ordering.size(); index++) {
+            int position = ordering.getRelevancePosition(index);
+            if (!changed[position]) {
+                oldPositions[oldCount++] = position;
+            }
+        }
+
+        // Merge the sorted new rows into the sorted old rows.
+        int[] positions = new int[oldCount + newPositions.length];
+        int oldIndex = 0;
+        int newIndex = 0;
+        for (int index = 0; index < positions.length; index++) {
+            boolean takeOld = newIndex == newPositions.length
+                    || oldIndex < oldCount && comparator.compare(oldPositions[oldIndex], newPositions[newIndex]) < 0;
+            positions[index] = takeOld ? oldPositions[oldIndex++] : newPositions[newIndex++];
+        }
+
+        // Start a group wherever the label changes, reusing the recorded label of every row.
+        String[] labels = groupLabels[view];
+        List<Integer> groupStartList = new ArrayList<>();
+        List<String> groupLabelList = new ArrayList<>();
+        String previousLabel = null;
+        for (int index = 0; index < positions.length; index++) {
+            String label = labels[positions[index]];
+            if (!label.equalsIgnoreCase(previousLabel)) {
+                groupStartList.add(index);
+                groupLabelList.add(label);
+                previousLabel = label;
+            }
+        }
+        int[] groupStarts = new int[groupStartList.size()];
+        for (int index = 0; index < groupStarts.length; index++) {
+            groupStarts[index] = groupStartList.get(index);
+        }
+        return new BookOrdering(view, positions, groupStarts, groupLabelList.toArray(new String[0]));
+    }
+
+    /**
+     * Returns a {@link Comparator} of relevance positions for the given view. Ties are broken by
+     * relevance, so the ordering is stable across updates.
+     *
+     * @param view int view to compare rows by.
+     * @return A {@link Comparator} of relevance positions for the given view.
+     */
+    private Comparator<Integer> getComparator(final int view) {
+        return new Comparator<Integer>() {
+            @Override
+            public int compare(Integer position1, Integer position2) {
+                int result;
+                if (view == BookOrdering.VIEW_TITLE) {
+                    result = titleKeys[position1].compareTo(titleKeys[position2]);
+                } else if (view == BookOrdering.VIEW_FIRST_AUTHOR) {
+                    // Unknown authors go last.
+                    String key1 = firstAuthorKeys[position1];
+                    String key2 = firstAuthorKeys[position2];
+                    if (key1 == null || key2 == null) {
+                        result = key1 == null ? (key2 == null ? 0 : 1) : -1;
+                    } else {
+                        result = key1.compareTo(key2);
+                    }
+                } else {
+                    result = Integer.compare(authorCounts[position1], authorCounts[position2]);
+                }
+                return result != 0 ? result : Integer.compare(position1, position2);
+            }
+        };
+    }
+
+    /**
+     * Returns the label of the group the row at the given relevance position belongs to in the
+     * given view, computed from its sort keys.
+     *
+     * @param view     int view the row is grouped by.
+     * @param position Int relevance position of the row.
+     * @return The label of the group the row belongs to.
+     */
+    private String getGroupLabel(int view, int position) {
+        Resources resources = context.getResources();
+        if (view == BookOrdering.VIEW_TITLE) {
+            String titleKey = titleKeys[position];
+            if (titleKey.isEmpty() || !Character.isLetter(titleKey.charAt(0))) {
+                return OTHER_TITLES_LABEL;
+            }
+            return titleKey.substring(0, 1).toUpperCase(Locale.getDefault());
+        } else if (view == BookOrdering.VIEW_FIRST_AUTHOR) {
+            // Authors differing only in case share the label of the first of them.
+            String firstAuthor = firstAuthors[position];
+            return firstAuthor != null ? firstAuthor : resources.getString(R.string.group_unknown_author);
+        } else {
+            int authorCount = authorCounts[position];
+            return authorCount == 0 ? resources.getString(R.string.group_unknown_author)
+                    : resources.getQuantityString(R.plurals.group_author_count, authorCount, authorCount);
+        }
+    }
+
+    /**
+     * {@link OnOrderingsUpdatedListener} is notified on the main thread when the orderings have
+     * been updated.
+     */
+    public interface OnOrderingsUpdatedListener {
+
+        /**
+         * Callback method invoked when the orderings have been updated.
+         *
+         * @param orderings {@link BookOrdering} array holding the ordering of every view, indexed
+         *                  by view. The entry for {@link BookOrdering#VIEW_RELEVANCE} is null.
+         */
+        void onOrderingsUpdated(@NonNull BookOrdering[] orderings);
+    }
+}
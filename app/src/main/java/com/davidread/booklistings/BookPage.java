@@ -0,0 +1,68 @@
+package com.davidread.booklistings;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * {@link BookPage} is a model class for one page of results fetched from a {@link BookSource}.
+ */
+public class BookPage {
+
+    /**
+     * {@link List} of {@link Book} objects on the page.
+     */
+    private final List<Book> books;
+
+    /**
+     * {@link BookSource} the page was fetched from.
+     */
+    private final BookSource source;
+
+    /**
+     * long representing the number of response bytes read to fetch the page.
+     */
+    private final long byteCount;
+
+    /**
+     * Constructs a new {@link BookPage} object.
+     *
+     * @param books     {@link List} of {@link Book} objects on the page.
+     * @param source    {@link BookSource} the page was fetched from.
+     * @param byteCount long representing the number of response bytes read to fetch the page.
+     */
+    public BookPage(@NonNull List<Book> books, @NonNull BookSource source, long byteCount) {
+        this.books = books;
+        this.source = source;
+        this.byteCount = byteCount;
+    }
+
+    /**
+     * Returns the {@link List} of {@link Book} objects on the page.
+     *
+     * @return {@link List} of {@link Book} objects on the page.
+     */
+    @NonNull
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    /**
+     * Returns the {@link BookSource} the page was fetched from.
+     *
+     * @return {@link BookSource} the page was fetched from.
+     */
+    @NonNull
+    public BookSource getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the number of response bytes read to fetch the page.
+     *
+     * @return The number of response bytes read to fetch the page.
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+}
@@ -0,0 +1,54 @@
+package com.davidread.booklistings;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * {@link BookSource} is a backend that {@link BookLoader} fetches pages of {@link Book} objects
+ * from, such as the Google Books API, another books API or a local mirror. Implementations must be
+ * safe to call from several worker threads at once.
+ */
+public interface BookSource {
+
+    /**
+     * Returns a {@link String} naming this source in logs and statistics.
+     *
+     * @return {@link String} naming this source.
+     */
+    @NonNull
+    String getName();
+
+    /**
+     * Fetches one page of results for a query term. Called on a worker thread. Implementations
+     * should stop early with an {@link java.io.InterruptedIOException} when the calling thread is
+     * interrupted.
+     *
+     * @param query            {@link String} specifying the query term.
+     * @param startIndex       int specifying the index of the first result of the page.
+     * @param maxResults       int specifying the number of results per page.
+     * @param onBatchListener  {@link OnBatchListener} notified of parsed {@link Book} objects
+     *                         while the page is still loading, or null.
+     * @return {@link BookPage} holding the fetched page.
+     * @throws IOException If the page could not be fetched.
+     */
+    @NonNull
+    BookPage fetchPage(String query, int startIndex, int maxResults, @Nullable OnBatchListener onBatchListener) throws IOException;
+
+    /**
+     * {@link OnBatchListener} is notified on the fetching worker thread of batches of
+     * {@link Book} objects parsed while a page is still loading.
+     */
+    interface OnBatchListener {
+
+        /**
+         * Callback method invoked when a batch of {@link Book} objects has been parsed.
+         *
+         * @param source {@link BookSource} that parsed the batch.
+         * @param books  {@link List} of {@link Book} objects in the batch, in result order.
+         */
+        void onBatch(@NonNull BookSource source, @NonNull List<Book> books);
+    }
+}
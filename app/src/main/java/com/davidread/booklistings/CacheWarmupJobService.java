@@ -0,0 +1,187 @@
+package com.davidread.booklistings;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link CacheWarmupJobService} is a {@link JobService} that refreshes the {@link BookCache} in the
+ * background. It fetches the first pages of the user's {@link RecentQueries} followed by the seed
+ * queries in the {@code warmup_seed_queries} array resource from the same {@link BookSource} as
+ * {@link BookLoader}. Full {@link BookLoader#PAGE_SIZE} pages are fetched, which also serve the
+ * smaller pages a {@link DataPolicy} picks on metered and constrained networks. It only runs on an
+ * unmetered network while the device is charging, and stops once it has spent its per-run data
+ * budget.
+ */
+public class CacheWarmupJobService extends JobService {
+
+    /**
+     * int id identifying the warmup job in the {@link JobScheduler}.
+     */
+    private static final int JOB_ID = 1;
+
+    /**
+     * long specifying how many milliseconds pass between warmup runs.
+     */
+    private static final long INTERVAL_MILLIS = 24 * 60 * 60 * 1000;
+
+    /**
+     * int specifying how many query terms a single run may refresh.
+     */
+    private static final int MAX_QUERIES_PER_RUN = 8;
+
+    /**
+     * int specifying how many pages are refreshed for each query term.
+     */
+    private static final int PAGES_PER_QUERY = 1;
+
+    /**
+     * long specifying how many response bytes a single run may download.
+     */
+    private static final long MAX_BYTES_PER_RUN = 1024 * 1024;
+
+    /**
+     * Boolean representing whether the {@link JobScheduler} asked the current run to stop.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Schedules the periodic warmup job unless it is already scheduled.
+     *
+     * @param context {@link Context} used for accessing the {@link JobScheduler}.
+     */
+    public static void schedule(@NonNull Context context) {
+        JobScheduler jobScheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (jobScheduler == null) {
+            return;
+        }
+
+        // Do nothing if the job is already scheduled, so its period is not restarted.
+        for (JobInfo pendingJobInfo : jobScheduler.getAllPendingJobs()) {
+            if (pendingJobInfo.getId() == JOB_ID) {
+                return;
+            }
+        }
+
+        JobInfo.Builder builder = new JobInfo.Builder(JOB_ID, new ComponentName(context, CacheWarmupJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setRequiresCharging(true)
+                .setPersisted(true)
+                .setPeriodic(INTERVAL_MILLIS);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setRequiresBatteryNotLow(true);
+        }
+        jobScheduler.schedule(builder.build());
+    }
+
+    /**
+     * Handles the startJob event. Start a worker thread that refreshes the {@link BookCache} on
+     * this event.
+     *
+     * @param params {@link JobParameters} of the run.
+     * @return True, since the work continues on the worker thread.
+     */
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        stopped = false;
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                warmUp();
+                if (!stopped) {
+                    jobFinished(params, false);
+                }
+            }
+        }, CacheWarmupJobService.class.getSimpleName()).start();
+        return true;
+    }
+
+    /**
+     * Handles the stopJob event. Ask the worker thread to stop after its current request on this
+     * event.
+     *
+     * @param params {@link JobParameters} of the run.
+     * @return True, so the run is retried later.
+     */
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        stopped = true;
+        return true;
+    }
+
+    /**
+     * Fetches the first pages of every warmup query term that is not fresh in the
+     * {@link BookCache}, until the query or data budget is spent or the run is stopped.
+     */
+    private void warmUp() {
+        BookCache bookCache = new BookCache(this);
+        long downloadedBytes = 0;
+
+        for (String query : getWarmupQueries()) {
+            for (int page = 0; page < PAGES_PER_QUERY; page++) {
+
+                // Return early if the run is stopped or the data budget is spent.
+                if (stopped || downloadedBytes >= MAX_BYTES_PER_RUN) {
+                    Log.i(CacheWarmupJobService.class.getSimpleName(), "Warmup ended after " + downloadedBytes + " bytes");
+                    return;
+                }
+
+                // Skip pages that are still fresh.
+                int startIndex = page * BookLoader.PAGE_SIZE;
+                if (bookCache.isFresh(query, startIndex, BookLoader.PAGE_SIZE)) {
+                    continue;
+                }
+
+                // Fetch and parse the page the same way BookLoader does, caching non-empty results.
+                try {
+                    BookPage bookPage = BookLoader.getBookSource().fetchPage(query, startIndex, BookLoader.PAGE_SIZE, null);
+                    downloadedBytes += bookPage.getByteCount();
+                    if (!bookPage.getBooks().isEmpty()) {
+                        bookCache.put(query, startIndex, BookLoader.PAGE_SIZE, bookPage.getBooks());
+                    }
+                } catch (IOException e) {
+                    Log.e(CacheWarmupJobService.class.getSimpleName(), "Error warming up " + query, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a {@link List} of the query terms to warm up. Recent queries come first, followed
+     * by the seed queries, without duplicates and capped at {@link #MAX_QUERIES_PER_RUN}.
+     *
+     * @return {@link List} of the query terms to warm up.
+     */
+    private List<String> getWarmupQueries() {
+        List<String> candidates = new ArrayList<>(new RecentQueries(this).getQueries());
+        candidates.addAll(Arrays.asList(getResources().getStringArray(R.array.warmup_seed_queries)));
+
+        List<String> queries = new ArrayList<>();
+        List<String> normalizedQueries = new ArrayList<>();
+        for (String candidate : candidates) {
+            String normalizedCandidate = candidate.trim().toLowerCase(Locale.ROOT);
+            if (normalizedCandidate.isEmpty() || normalizedQueries.contains(normalizedCandidate)) {
+                continue;
+            }
+            normalizedQueries.add(normalizedCandidate);
+            queries.add(candidate);
+            if (queries.size() == MAX_QUERIES_PER_RUN) {
+                break;
+            }
+        }
+        return queries;
+    }
+}
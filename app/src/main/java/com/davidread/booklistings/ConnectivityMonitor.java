@@ -0,0 +1,290 @@
+package com.davidread.booklistings;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ConnectivityMonitor} is a process-wide monitor of the default network. It is driven by
+ * {@link ConnectivityManager.NetworkCallback} events and caches the class of the current network,
+ * so the class can be read cheaply at any time, such as on every scroll event. Networks are
+ * classified as {@link #NETWORK_CLASS_UNMETERED}, {@link #NETWORK_CLASS_METERED} or
+ * {@link #NETWORK_CLASS_CONSTRAINED}. A metered network is constrained when the system data saver
+ * restricts the app or its estimated bandwidth is low. {@link OnNetworkClassChangedListener}
+ * objects are notified on the main thread whenever the class changes.
+ */
+public class ConnectivityMonitor {
+
+    /**
+     * int class of no network, or a network without Internet access.
+     */
+    public static final int NETWORK_CLASS_NONE = 0;
+
+    /**
+     * int class of a slow or restricted metered network.
+     */
+    public static final int NETWORK_CLASS_CONSTRAINED = 1;
+
+    /**
+     * int class of a metered network, such as a cellular network.
+     */
+    public static final int NETWORK_CLASS_METERED = 2;
+
+    /**
+     * int class of an unmetered network, such as a Wi-Fi network.
+     */
+    public static final int NETWORK_CLASS_UNMETERED = 3;
+
+    /**
+     * int specifying the estimated downstream bandwidth in kilobits per second below which a
+     * metered network is constrained.
+     */
+    private static final int CONSTRAINED_BANDWIDTH_KBPS = 1000;
+
+    /**
+     * The single {@link ConnectivityMonitor} object of the process.
+     */
+    private static ConnectivityMonitor instance;
+
+    /**
+     * {@link ConnectivityManager} reporting the network state.
+     */
+    private final ConnectivityManager connectivityManager;
+
+    /**
+     * {@link Handler} used for notifying listeners on the main thread.
+     */
+    private final Handler mainHandler;
+
+    /**
+     * {@link List} of {@link OnNetworkClassChangedListener} objects. Only used from the main
+     * thread.
+     */
+    private final List<OnNetworkClassChangedListener> onNetworkClassChangedListeners;
+
+    /**
+     * int representing the class of the current network. Written on the callback thread.
+     */
+    private volatile int networkClass;
+
+    /**
+     * {@link ConnectivityManager.NetworkCallback} defines how the cached network class follows the
+     * default network.
+     */
+    private final ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
+
+        /**
+         * Handles available event. Reclassify the network on this event.
+         *
+         * @param network {@link Network} that became available.
+         */
+        @Override
+        public void onAvailable(@NonNull Network network) {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+                refresh();
+            }
+        }
+
+        /**
+         * Handles capabilitiesChanged event. Reclassify the default network from its new
+         * capabilities on this event.
+         *
+         * @param network             {@link Network} whose capabilities changed.
+         * @param networkCapabilities {@link NetworkCapabilities} of the network.
+         */
+        @Override
+        public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities networkCapabilities) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                setNetworkClass(classify(networkCapabilities));
+            } else {
+                refresh();
+            }
+        }
+
+        /**
+         * Handles lost event. Reclassify the network on this event.
+         *
+         * @param network {@link Network} that was lost.
+         */
+        @Override
+        public void onLost(@NonNull Network network) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                setNetworkClass(NETWORK_CLASS_NONE);
+            } else {
+                refresh();
+            }
+        }
+    };
+
+    /**
+     * Constructs a new {@link ConnectivityMonitor} object, reads the current network state once
+     * and starts following it.
+     *
+     * @param context {@link Context} used for accessing the {@link ConnectivityManager}.
+     */
+    private ConnectivityMonitor(@NonNull Context context) {
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.onNetworkClassChangedListeners = new ArrayList<>();
+        refresh();
+
+        // Follow the default network, or every network with Internet access before API level 24.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            connectivityManager.registerDefaultNetworkCallback(networkCallback);
+        } else {
+            NetworkRequest networkRequest = new NetworkRequest.Builder()
+                    .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                    .build();
+            connectivityManager.registerNetworkCallback(networkRequest, networkCallback);
+        }
+    }
+
+    /**
+     * Returns the single {@link ConnectivityMonitor} object of the process, creating it if
+     * needed. Must be called from the main thread.
+     *
+     * @param context {@link Context} used for accessing the {@link ConnectivityManager} on
+     *                creation.
+     * @return The single {@link ConnectivityMonitor} object of the process.
+     */
+    @NonNull
+    public static ConnectivityMonitor getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new ConnectivityMonitor(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the class of the current network.
+     *
+     * @return One of {@link #NETWORK_CLASS_NONE}, {@link #NETWORK_CLASS_CONSTRAINED},
+     * {@link #NETWORK_CLASS_METERED} or {@link #NETWORK_CLASS_UNMETERED}.
+     */
+    public int getNetworkClass() {
+        return networkClass;
+    }
+
+    /**
+     * Returns whether the current network has Internet access.
+     *
+     * @return Whether the current network has Internet access.
+     */
+    public boolean isConnected() {
+        return networkClass != NETWORK_CLASS_NONE;
+    }
+
+    /**
+     * Adds an {@link OnNetworkClassChangedListener}. Must be called from the main thread.
+     *
+     * @param onNetworkClassChangedListener {@link OnNetworkClassChangedListener} to add.
+     */
+    public void addOnNetworkClassChangedListener(@NonNull OnNetworkClassChangedListener onNetworkClassChangedListener) {
+        if (!onNetworkClassChangedListeners.contains(onNetworkClassChangedListener)) {
+            onNetworkClassChangedListeners.add(onNetworkClassChangedListener);
+        }
+    }
+
+    /**
+     * Removes an {@link OnNetworkClassChangedListener}. Must be called from the main thread.
+     *
+     * @param onNetworkClassChangedListener {@link OnNetworkClassChangedListener} to remove.
+     */
+    public void removeOnNetworkClassChangedListener(@NonNull OnNetworkClassChangedListener onNetworkClassChangedListener) {
+        onNetworkClassChangedListeners.remove(onNetworkClassChangedListener);
+    }
+
+    /**
+     * Reads the state of the active network and reclassifies it. Used on creation, and on every
+     * callback event before API level 24, where callbacks do not follow the default network.
+     */
+    @SuppressWarnings("deprecation")
+    private void refresh() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            Network activeNetwork = connectivityManager.getActiveNetwork();
+            setNetworkClass(classify(activeNetwork == null ? null : connectivityManager.getNetworkCapabilities(activeNetwork)));
+            return;
+        }
+
+        NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
+        if (activeNetworkInfo == null || !activeNetworkInfo.isConnected()) {
+            setNetworkClass(NETWORK_CLASS_NONE);
+        } else {
+            setNetworkClass(connectivityManager.isActiveNetworkMetered() ? NETWORK_CLASS_METERED : NETWORK_CLASS_UNMETERED);
+        }
+    }
+
+    /**
+     * Returns the class of a network with the given capabilities.
+     *
+     * @param networkCapabilities {@link NetworkCapabilities} of the network, or null if there is
+     *                            no network.
+     * @return The class of the network.
+     */
+    private int classify(@Nullable NetworkCapabilities networkCapabilities) {
+        if (networkCapabilities == null || !networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)) {
+            return NETWORK_CLASS_NONE;
+        }
+
+        // Treat networks that are unmetered for now, such as 5G plans, as unmetered.
+        boolean unmetered = networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED)
+                || Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_TEMPORARILY_NOT_METERED);
+        if (unmetered) {
+            return NETWORK_CLASS_UNMETERED;
+        }
+
+        // The system data saver only restricts metered networks.
+        boolean restricted = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                && connectivityManager.getRestrictBackgroundStatus() == ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED;
+        int bandwidthKbps = networkCapabilities.getLinkDownstreamBandwidthKbps();
+        boolean slow = bandwidthKbps > 0 && bandwidthKbps < CONSTRAINED_BANDWIDTH_KBPS;
+        return restricted || slow ? NETWORK_CLASS_CONSTRAINED : NETWORK_CLASS_METERED;
+    }
+
+    /**
+     * Caches the given network class and notifies the listeners on the main thread if it changed.
+     *
+     * @param newNetworkClass int class of the current network.
+     */
+    private void setNetworkClass(final int newNetworkClass) {
+        if (networkClass == newNetworkClass) {
+            return;
+        }
+        networkClass = newNetworkClass;
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                // Iterate over a copy, since listeners may remove themselves.
+                for (OnNetworkClassChangedListener onNetworkClassChangedListener : new ArrayList<>(onNetworkClassChangedListeners)) {
+                    onNetworkClassChangedListener.onNetworkClassChanged(newNetworkClass);
+                }
+            }
+        });
+    }
+
+    /**
+     * {@link OnNetworkClassChangedListener} is notified on the main thread when the class of the
+     * current network changes.
+     */
+    public interface OnNetworkClassChangedListener {
+
+        /**
+         * Callback method invoked when the class of the current network changes.
+         *
+         * @param networkClass int class of the current network.
+         */
+        void onNetworkClassChanged(int networkClass);
+    }
+}
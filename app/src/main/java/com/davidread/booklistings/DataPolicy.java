@@ -0,0 +1,141 @@
+package com.davidread.booklistings;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@link DataPolicy} decides how much data the results list may spend for a class of network as
+ * reported by the {@link ConnectivityMonitor}: how many results are fetched per page and how many
+ * rows before the end of the list the next page is prefetched. The user may turn on a data saver,
+ * which applies the policy of a constrained network everywhere.
+ */
+public class DataPolicy {
+
+    /**
+     * {@link String} name of the {@link SharedPreferences} file holding the data saver setting.
+     */
+    private static final String PREFERENCES_NAME = "data_policy";
+
+    /**
+     * {@link String} key of the data saver setting.
+     */
+    private static final String KEY_DATA_SAVER = "data_saver";
+
+    /**
+     * int representing the class of network this policy applies to.
+     */
+    private final int networkClass;
+
+    /**
+     * int specifying how many results are fetched per page.
+     */
+    private final int pageSize;
+
+    /**
+     * int specifying how many rows before the end of the list the next page is fetched.
+     */
+    private final int prefetchDistance;
+
+    /**
+     * Constructs a new {@link DataPolicy} object.
+     *
+     * @param networkClass     int representing the class of network this policy applies to.
+     * @param pageSize         int specifying how many results are fetched per page.
+     * @param prefetchDistance int specifying how many rows before the end of the list the next
+     *                         page is fetched.
+     */
+    private DataPolicy(int networkClass, int pageSize, int prefetchDistance) {
+        this.networkClass = networkClass;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    /**
+     * Returns the {@link DataPolicy} for the current network and data saver setting. Must be
+     * called from the main thread.
+     *
+     * @param context {@link Context} used for accessing the {@link ConnectivityMonitor} and the
+     *                data saver setting.
+     * @return The {@link DataPolicy} for the current network and data saver setting.
+     */
+    @NonNull
+    public static DataPolicy getCurrent(@NonNull Context context) {
+        return forNetworkClass(ConnectivityMonitor.getInstance(context).getNetworkClass(), isDataSaverEnabled(context));
+    }
+
+    /**
+     * Returns the {@link DataPolicy} for the given class of network.
+     *
+     * @param networkClass     int class of network as reported by the {@link ConnectivityMonitor}.
+     * @param dataSaverEnabled Boolean representing whether the user turned on the data saver.
+     * @return The {@link DataPolicy} for the given class of network.
+     */
+    @NonNull
+    public static DataPolicy forNetworkClass(int networkClass, boolean dataSaverEnabled) {
+        if (dataSaverEnabled && networkClass != ConnectivityMonitor.NETWORK_CLASS_NONE) {
+            networkClass = ConnectivityMonitor.NETWORK_CLASS_CONSTRAINED;
+        }
+        switch (networkClass) {
+            case ConnectivityMonitor.NETWORK_CLASS_UNMETERED:
+                return new DataPolicy(networkClass, BookLoader.PAGE_SIZE, BookLoader.PAGE_SIZE);
+            case ConnectivityMonitor.NETWORK_CLASS_METERED:
+                return new DataPolicy(networkClass, BookLoader.PAGE_SIZE / 2, BookLoader.PAGE_SIZE / 4);
+            case ConnectivityMonitor.NETWORK_CLASS_CONSTRAINED:
+                return new DataPolicy(networkClass, BookLoader.PAGE_SIZE / 4, 0);
+            default:
+                // Nothing is fetched without a network. Pick the metered page size for the next
+                // search in case the network comes back.
+                return new DataPolicy(networkClass, BookLoader.PAGE_SIZE / 2, 0);
+        }
+    }
+
+    /**
+     * Returns whether the user turned on the data saver.
+     *
+     * @param context {@link Context} used for opening the {@link SharedPreferences} file.
+     * @return Whether the user turned on the data saver.
+     */
+    public static boolean isDataSaverEnabled(@NonNull Context context) {
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE).getBoolean(KEY_DATA_SAVER, false);
+    }
+
+    /**
+     * Sets whether the user turned on the data saver.
+     *
+     * @param context          {@link Context} used for opening the {@link SharedPreferences} file.
+     * @param dataSaverEnabled Boolean representing whether the user turned on the data saver.
+     */
+    public static void setDataSaverEnabled(@NonNull Context context, boolean dataSaverEnabled) {
+        context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE).edit().putBoolean(KEY_DATA_SAVER, dataSaverEnabled).apply();
+    }
+
+    /**
+     * Returns the class of network this policy applies to, after the data saver is applied.
+     *
+     * @return The class of network this policy applies to.
+     */
+    public int getNetworkClass() {
+        return networkClass;
+    }
+
+    /**
+     * Returns how many results are fetched per page.
+     *
+     * @return The number of results fetched per page.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns how many rows before the end of the list the next page is fetched. 0 means the next
+     * page is fetched once the end of the list is visible.
+     *
+     * @return The number of rows before the end of the list the next page is fetched.
+     */
+    public int getPrefetchDistance() {
+        return prefetchDistance;
+    }
+}
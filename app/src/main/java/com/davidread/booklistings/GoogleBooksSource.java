@@ -0,0 +1,340 @@
+package com.davidread.booklistings;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link GoogleBooksSource} is a {@link BookSource} that performs a Google Books API volumes
+ * search, or a search on any server speaking the same protocol. The response is parsed as it
+ * streams in, and every {@link #BATCH_SIZE} parsed {@link Book} objects are passed to the
+ * {@link BookSource.OnBatchListener}.
+ */
+public class GoogleBooksSource implements BookSource {
+
+    /**
+     * int specifying how many parsed {@link Book} objects are passed on together.
+     */
+    public static final int BATCH_SIZE = 8;
+
+    /**
+     * {@link String} URL parameter specifying what specific JSON fields the volumes search should
+     * return.
+     */
+    private static final String FIELDS_URL_PARAMETER = "fields=items(volumeInfo/title,volumeInfo/authors,volumeInfo/infoLink)";
+
+    /**
+     * {@link String} naming this source.
+     */
+    private final String name;
+
+    /**
+     * {@link String} specifying the base URL for performing a volumes search.
+     */
+    private final String baseUrl;
+
+    /**
+     * Constructs a new {@link GoogleBooksSource} object.
+     *
+     * @param name    {@link String} naming this source.
+     * @param baseUrl {@link String} specifying the base URL for performing a volumes search.
+     */
+    public GoogleBooksSource(@NonNull String name, @NonNull String baseUrl) {
+        this.name = name;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Returns a {@link String} naming this source.
+     *
+     * @return {@link String} naming this source.
+     */
+    @NonNull
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Performs a volumes search for the given page and parses the response as it streams in. A
+     * page is only returned once the whole response has been parsed, so a truncated or malformed
+     * response fails instead of returning a partial page.
+     *
+     * @param query           {@link String} specifying the query term.
+     * @param startIndex      int specifying the index of the first result of the page.
+     * @param maxResults      int specifying the number of results per page.
+     * @param onBatchListener {@link BookSource.OnBatchListener} notified of parsed {@link Book}
+     *                        objects while the page is still loading, or null.
+     * @return {@link BookPage} holding the fetched page.
+     * @throws IOException If the request fails, returns an unsuccessful response code, or returns
+     *                     a truncated or malformed response.
+     */
+    @NonNull
+    @Override
+    public BookPage fetchPage(String query, int startIndex, int maxResults, @Nullable OnBatchListener onBatchListener) throws IOException {
+
+        // Initialize objects used for network request.
+        HttpURLConnection httpURLConnection = null;
+        CountingInputStream inputStream = null;
+
+        try {
+            // Setup the network request and execute it.
+            httpURLConnection = (HttpURLConnection) constructQueryUrl(query, startIndex, maxResults).openConnection();
+            httpURLConnection.setReadTimeout(10000);
+            httpURLConnection.setConnectTimeout(15000);
+            httpURLConnection.setRequestMethod("GET");
+            httpURLConnection.connect();
+
+            // Fail if the request is not successful, so callers can fall back to another source.
+            if (httpURLConnection.getResponseCode() != 200) {
+                throw new IOException(name + " returned with response code " + httpURLConnection.getResponseCode());
+            }
+
+            // Parse the input stream as it is read.
+            inputStream = new CountingInputStream(httpURLConnection.getInputStream());
+            List<Book> books = parseBooks(new InputStreamReader(inputStream, StandardCharsets.UTF_8), this, onBatchListener);
+            return new BookPage(books, this, inputStream.getByteCount());
+        } finally {
+            // Cleanup objects used for network request.
+            if (httpURLConnection != null) {
+                httpURLConnection.disconnect();
+            }
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    Log.e(GoogleBooksSource.class.getSimpleName(), "Error closing input stream", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a {@link URL} object for performing a volumes search given a query term, start
+     * index and maximum number of results.
+     *
+     * @param query      {@link String} representing the query term.
+     * @param startIndex int representing the start index.
+     * @param maxResults int representing the maximum number of results.
+     * @return {@link URL} object for performing a volumes search.
+     */
+    private URL constructQueryUrl(String query, int startIndex, int maxResults) throws MalformedURLException {
+
+        // Construct string URL.
+        String stringUrl = "";
+        try {
+            String queryUrlParameter = "q=" + URLEncoder.encode(query, StandardCharsets.UTF_8.name());
+            String startIndexUrlParameter = "startIndex=" + startIndex;
+            String maxResultsUrlParameter = "maxResults=" + maxResults;
+            stringUrl = baseUrl + "?" + queryUrlParameter + "&" + startIndexUrlParameter + "&" + maxResultsUrlParameter + "&" + FIELDS_URL_PARAMETER;
+        } catch (UnsupportedEncodingException e) {
+            Log.e(GoogleBooksSource.class.getSimpleName(), "Error encoding query term for string URL", e);
+        }
+
+        // Construct URL object.
+        return new URL(stringUrl);
+    }
+
+    /**
+     * Parses a JSON response in the Google Books API volumes search format as it is read from the
+     * given {@link Reader} and returns it in a {@link List} of {@link Book} objects. The
+     * {@link List} is only returned once the whole response has been read. Batches published
+     * before a malformed token or the end of a truncated response are not final.
+     *
+     * @param reader          {@link Reader} holding a JSON response.
+     * @param source          {@link BookSource} passed on to the listener.
+     * @param onBatchListener {@link BookSource.OnBatchListener} notified of every batch of parsed
+     *                        {@link Book} objects, or null.
+     * @return {@link List} of {@link Book} objects parsed from a JSON response.
+     * @throws IOException If the response is truncated or malformed, or the calling thread is
+     *                     interrupted while reading.
+     */
+    static List<Book> parseBooks(Reader reader, @NonNull BookSource source, @Nullable OnBatchListener onBatchListener) throws IOException {
+
+        List<Book> books = new ArrayList<>();
+        int publishedCount = 0;
+        JsonReader jsonReader = new JsonReader(reader);
+
+        try {
+            // Find the items JSON array containing the results.
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                if (!jsonReader.nextName().equals("items")) {
+                    jsonReader.skipValue();
+                    continue;
+                }
+
+                // Parse each item in the items JSON array, publishing every full batch.
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    Book book = parseItem(jsonReader);
+                    if (book != null) {
+                        books.add(book);
+                    }
+                    if (onBatchListener != null && books.size() - publishedCount == BATCH_SIZE) {
+                        onBatchListener.onBatch(source, new ArrayList<>(books.subList(publishedCount, books.size())));
+                        publishedCount = books.size();
+                    }
+                }
+                jsonReader.endArray();
+            }
+            jsonReader.endObject();
+
+            // Fail if anything follows the response, since it is not a volumes search response.
+            if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                throw new IOException(source.getName() + " returned more than one JSON object");
+            }
+        } catch (IllegalStateException e) {
+            throw new IOException(source.getName() + " returned a malformed response", e);
+        }
+
+        // Publish the last partial batch.
+        if (onBatchListener != null && books.size() > publishedCount) {
+            onBatchListener.onBatch(source, new ArrayList<>(books.subList(publishedCount, books.size())));
+        }
+
+        return books;
+    }
+
+    /**
+     * Parses one item of the items JSON array and returns it as a {@link Book} object, or null if
+     * the item has no volumeInfo JSON object.
+     *
+     * @param jsonReader {@link JsonReader} positioned at the item.
+     * @return {@link Book} object parsed from the item, or null.
+     */
+    @Nullable
+    private static Book parseItem(JsonReader jsonReader) throws IOException {
+
+        Book book = null;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            if (jsonReader.nextName().equals("volumeInfo") && jsonReader.peek() == JsonToken.BEGIN_OBJECT) {
+                book = parseVolumeInfo(jsonReader);
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return book;
+    }
+
+    /**
+     * Parses the volumeInfo JSON object of an item and returns it as a {@link Book} object.
+     * Missing properties are left empty.
+     *
+     * @param jsonReader {@link JsonReader} positioned at the volumeInfo JSON object.
+     * @return {@link Book} object parsed from the volumeInfo JSON object.
+     */
+    private static Book parseVolumeInfo(JsonReader jsonReader) throws IOException {
+
+        String title = "";
+        String[] authors = new String[]{""};
+        String url = "";
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (name.equals("title") && jsonReader.peek() == JsonToken.STRING) {
+                title = jsonReader.nextString();
+            } else if (name.equals("authors") && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                List<String> authorsList = new ArrayList<>();
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    if (jsonReader.peek() == JsonToken.STRING) {
+                        authorsList.add(jsonReader.nextString());
+                    } else {
+                        jsonReader.skipValue();
+                    }
+                }
+                jsonReader.endArray();
+                authors = authorsList.toArray(new String[0]);
+            } else if (name.equals("infoLink") && jsonReader.peek() == JsonToken.STRING) {
+                url = jsonReader.nextString();
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+
+        return new Book(title, authors, url);
+    }
+
+    /**
+     * {@link CountingInputStream} is a {@link FilterInputStream} that counts the bytes read
+     * through it and stops with an {@link InterruptedIOException} once the reading thread is
+     * interrupted, such as when a hedged request loses.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        /**
+         * long representing the number of bytes read.
+         */
+        private long byteCount;
+
+        /**
+         * Constructs a new {@link CountingInputStream} object.
+         *
+         * @param in {@link InputStream} to read from.
+         */
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        /**
+         * Returns the number of bytes read.
+         *
+         * @return The number of bytes read.
+         */
+        long getByteCount() {
+            return byteCount;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkInterrupted();
+            int b = super.read();
+            if (b >= 0) {
+                byteCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            checkInterrupted();
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                byteCount += count;
+            }
+            return count;
+        }
+
+        /**
+         * Throws an {@link InterruptedIOException} if the reading thread is interrupted.
+         */
+        private void checkInterrupted() throws InterruptedIOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Read interrupted");
+            }
+        }
+    }
+}
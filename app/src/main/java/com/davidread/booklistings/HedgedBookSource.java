@@ -0,0 +1,295 @@
+package com.davidread.booklistings;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link HedgedBookSource} is a {@link BookSource} that sends every request to a primary source
+ * and, if no answer arrives within a hedge delay, sends a duplicate request to a secondary source.
+ * Whichever answers first is used and the other request is interrupted. A failed primary request
+ * is hedged right away. Counters of requests, hedges and wins per source are kept so the hedge
+ * rate can be tuned.
+ * <p>
+ * When a page is streamed, the source whose first batch arrives first owns the page. Batches of
+ * the other source are dropped, and its result is only used if the owner fails. Since a hedge
+ * could then only help if the owner fails, a primary source that has started streaming its page
+ * is not hedged after the delay, only once it fails.
+ * <p>
+ * Requests run on a pool of at most {@link #MAX_THREADS} threads, which time out once idle.
+ */
+public class HedgedBookSource implements BookSource {
+
+    /**
+     * int specifying how many requests may run at the same time. Further requests wait in line.
+     */
+    private static final int MAX_THREADS = 8;
+
+    /**
+     * long specifying how many seconds an idle request thread is kept alive.
+     */
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * {@link BookSource} every request is sent to first.
+     */
+    private final BookSource primarySource;
+
+    /**
+     * {@link BookSource} duplicate requests are sent to.
+     */
+    private final BookSource secondarySource;
+
+    /**
+     * long specifying how many milliseconds to wait for the primary source before hedging.
+     */
+    private final long hedgeDelayMillis;
+
+    /**
+     * {@link ExecutorService} running the requests on a bounded pool of threads that time out once
+     * idle, so it never needs to be shut down.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * {@link AtomicLong} counting requests.
+     */
+    private final AtomicLong requestCount;
+
+    /**
+     * {@link AtomicLong} counting requests that were hedged.
+     */
+    private final AtomicLong hedgeCount;
+
+    /**
+     * {@link AtomicLong} counting requests answered by the primary source.
+     */
+    private final AtomicLong primaryWinCount;
+
+    /**
+     * {@link AtomicLong} counting requests answered by the secondary source.
+     */
+    private final AtomicLong secondaryWinCount;
+
+    /**
+     * Constructs a new {@link HedgedBookSource} object.
+     *
+     * @param primarySource    {@link BookSource} every request is sent to first.
+     * @param secondarySource  {@link BookSource} duplicate requests are sent to.
+     * @param hedgeDelayMillis long specifying how many milliseconds to wait for the primary
+     *                         source before hedging. Usually close to its 95th percentile latency.
+     */
+    public HedgedBookSource(@NonNull BookSource primarySource, @NonNull BookSource secondarySource, long hedgeDelayMillis) {
+        this.primarySource = primarySource;
+        this.secondarySource = secondarySource;
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+                THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executorService = threadPoolExecutor;
+        this.requestCount = new AtomicLong();
+        this.hedgeCount = new AtomicLong();
+        this.primaryWinCount = new AtomicLong();
+        this.secondaryWinCount = new AtomicLong();
+    }
+
+    /**
+     * Returns a {@link String} naming this source after both of its sources.
+     *
+     * @return {@link String} naming this source.
+     */
+    @NonNull
+    @Override
+    public String getName() {
+        return "hedged(" + primarySource.getName() + ", " + secondarySource.getName() + ")";
+    }
+
+    /**
+     * Fetches one page of results from the primary source, hedging to the secondary source if the
+     * primary source fails, or is slow and has not started streaming its page.
+     *
+     * @param query           {@link String} specifying the query term.
+     * @param startIndex      int specifying the index of the first result of the page.
+     * @param maxResults      int specifying the number of results per page.
+     * @param onBatchListener {@link BookSource.OnBatchListener} notified of parsed {@link Book}
+     *                        objects of the owning source, or null.
+     * @return {@link BookPage} holding the fetched page.
+     * @throws IOException If both sources fail.
+     */
+    @NonNull
+    @Override
+    public BookPage fetchPage(String query, int startIndex, int maxResults, @Nullable OnBatchListener onBatchListener) throws IOException {
+        requestCount.incrementAndGet();
+        CompletionService<BookPage> completionService = new ExecutorCompletionService<>(executorService);
+        Map<Future<BookPage>, BookSource> futureSources = new HashMap<>();
+        AtomicReference<BookSource> owner = new AtomicReference<>();
+
+        futureSources.put(completionService.submit(newFetchTask(primarySource, query, startIndex, maxResults, onBatchListener, owner)), primarySource);
+        boolean hedged = false;
+        BookPage fallbackPage = null;
+        IOException failure = null;
+
+        try {
+            while (!futureSources.isEmpty()) {
+
+                /* Wait for an answer. Hedge if the primary source takes longer than the delay
+                 * without streaming part of its page, since it would own the page otherwise. */
+                boolean mayHedge = !hedged && owner.get() == null;
+                Future<BookPage> future = mayHedge ? completionService.poll(hedgeDelayMillis, TimeUnit.MILLISECONDS) : completionService.take();
+                if (future == null) {
+                    if (owner.get() != null) {
+                        continue;
+                    }
+                    hedged = true;
+                    hedgeCount.incrementAndGet();
+                    futureSources.put(completionService.submit(newFetchTask(secondarySource, query, startIndex, maxResults, onBatchListener, owner)), secondarySource);
+                    continue;
+                }
+                BookSource source = futureSources.remove(future);
+
+                try {
+                    // Use the answer unless another source already streamed part of its page.
+                    BookPage bookPage = future.get();
+                    if (owner.compareAndSet(null, source) || owner.get() == source) {
+                        return recordWin(bookPage);
+                    }
+                    fallbackPage = bookPage;
+                } catch (ExecutionException e) {
+                    Log.e(HedgedBookSource.class.getSimpleName(), source.getName() + " failed", e.getCause());
+                    failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+
+                    // Hedge right away if the primary source failed before the delay ran out.
+                    if (!hedged) {
+                        hedged = true;
+                        hedgeCount.incrementAndGet();
+                        futureSources.put(completionService.submit(newFetchTask(secondarySource, query, startIndex, maxResults, onBatchListener, owner)), secondarySource);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + getName());
+        } finally {
+            // Interrupt the request that lost.
+            for (Future<BookPage> future : futureSources.keySet()) {
+                future.cancel(true);
+            }
+        }
+
+        // Use the other answer if the source that owned the page failed.
+        if (fallbackPage != null) {
+            return recordWin(fallbackPage);
+        }
+        throw failure != null ? failure : new IOException(getName() + " returned no answer");
+    }
+
+    /**
+     * Returns the number of requests made.
+     *
+     * @return The number of requests made.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of requests that were hedged.
+     *
+     * @return The number of requests that were hedged.
+     */
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    /**
+     * Returns the share of requests that were hedged.
+     *
+     * @return The share of requests that were hedged, between 0 and 1.
+     */
+    public double getHedgeRate() {
+        long requests = requestCount.get();
+        return requests == 0 ? 0 : (double) hedgeCount.get() / requests;
+    }
+
+    /**
+     * Returns the number of requests answered by the primary source.
+     *
+     * @return The number of requests answered by the primary source.
+     */
+    public long getPrimaryWinCount() {
+        return primaryWinCount.get();
+    }
+
+    /**
+     * Returns the number of requests answered by the secondary source.
+     *
+     * @return The number of requests answered by the secondary source.
+     */
+    public long getSecondaryWinCount() {
+        return secondaryWinCount.get();
+    }
+
+    /**
+     * Counts a win for the source of the given page and returns the page.
+     *
+     * @param bookPage {@link BookPage} that won.
+     * @return The given {@link BookPage}.
+     */
+    private BookPage recordWin(BookPage bookPage) {
+        if (bookPage.getSource() == secondarySource) {
+            secondaryWinCount.incrementAndGet();
+        } else {
+            primaryWinCount.incrementAndGet();
+        }
+        return bookPage;
+    }
+
+    /**
+     * Returns a {@link Callable} fetching the page from the given source. Its batches are only
+     * passed on while the source owns the page, and its first batch claims the page if no source
+     * owns it yet.
+     *
+     * @param source          {@link BookSource} to fetch the page from.
+     * @param query           {@link String} specifying the query term.
+     * @param startIndex      int specifying the index of the first result of the page.
+     * @param maxResults      int specifying the number of results per page.
+     * @param onBatchListener {@link BookSource.OnBatchListener} to pass batches on to, or null.
+     * @param owner           {@link AtomicReference} holding the source that owns the page.
+     * @return A {@link Callable} fetching the page from the given source.
+     */
+    private static Callable<BookPage> newFetchTask(final BookSource source, final String query, final int startIndex, final int maxResults,
+                                                   @Nullable final OnBatchListener onBatchListener, final AtomicReference<BookSource> owner) {
+        final OnBatchListener ownedBatchListener = onBatchListener == null ? null : new OnBatchListener() {
+            @Override
+            public void onBatch(@NonNull BookSource batchSource, @NonNull List<Book> books) {
+                if (owner.compareAndSet(null, source) || owner.get() == source) {
+                    onBatchListener.onBatch(batchSource, books);
+                }
+            }
+        };
+        return new Callable<BookPage>() {
+            @Override
+            public BookPage call() throws IOException {
+                return source.fetchPage(query, startIndex, maxResults, ownedBatchListener);
+            }
+        };
+    }
+}
@@ -0,0 +1,340 @@
+package com.davidread.booklistings;
+
+import android.database.DataSetObserver;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.FrameMetrics;
+import android.view.Window;
+import android.widget.Adapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.util.Locale;
+
+/**
+ * {@link ListMetrics} collects rendering metrics of a results list for one session. It times
+ * every row bind in {@link BookAdapter#getView}, counts layout inflations and adapter data set
+ * changes, and, from API level 24, records the duration of every frame drawn while the list
+ * scrolls. A frame is janky if it takes longer than one refresh interval of the display. The
+ * collected numbers are summarized by {@link #getReport()}. It must only be used from the main
+ * thread.
+ */
+public class ListMetrics {
+
+    /**
+     * long array of the upper bounds in nanoseconds of the bind time histogram buckets. Binds
+     * slower than the last bound fall into an extra bucket.
+     */
+    private static final long[] BIND_BUCKET_BOUNDS_NANOS = {250000, 500000, 1000000, 2000000, 4000000, 8000000};
+
+    /**
+     * long specifying the expected frame duration in nanoseconds.
+     */
+    private final long frameIntervalNanos;
+
+    /**
+     * int array counting binds per bucket of {@link #BIND_BUCKET_BOUNDS_NANOS}.
+     */
+    private final int[] bindBucketCounts;
+
+    /**
+     * {@link DataSetObserver} counting data set changes of the watched {@link Adapter}.
+     */
+    private final DataSetObserver dataSetObserver;
+
+    /**
+     * {@link Window.OnFrameMetricsAvailableListener} recording frame durations, or null below API
+     * level 24.
+     */
+    private final Window.OnFrameMetricsAvailableListener onFrameMetricsAvailableListener;
+
+    /**
+     * long representing when the session started, in milliseconds since boot.
+     */
+    private long sessionStartMillis;
+
+    /**
+     * Boolean representing whether the list is scrolling.
+     */
+    private boolean scrolling;
+
+    /**
+     * int representing the number of rows bound.
+     */
+    private int bindCount;
+
+    /**
+     * int representing the number of rows bound with a newly inflated layout.
+     */
+    private int inflationCount;
+
+    /**
+     * long representing the total time spent binding rows, in nanoseconds.
+     */
+    private long totalBindNanos;
+
+    /**
+     * long representing the total time spent binding rows with a newly inflated layout, in
+     * nanoseconds.
+     */
+    private long totalInflatedBindNanos;
+
+    /**
+     * long representing the slowest bind, in nanoseconds.
+     */
+    private long maxBindNanos;
+
+    /**
+     * int representing the number of adapter data set changes.
+     */
+    private int dataSetChangeCount;
+
+    /**
+     * int representing the number of frames drawn while scrolling.
+     */
+    private int scrollFrameCount;
+
+    /**
+     * int representing the number of janky frames drawn while scrolling.
+     */
+    private int jankyFrameCount;
+
+    /**
+     * long representing the total time janky frames spent in layout and measure, which includes
+     * binding rows, in nanoseconds.
+     */
+    private long jankyLayoutNanos;
+
+    /**
+     * long representing the total time janky frames spent drawing, in nanoseconds.
+     */
+    private long jankyDrawNanos;
+
+    /**
+     * long representing the total duration of janky frames, in nanoseconds.
+     */
+    private long jankyTotalNanos;
+
+    /**
+     * Constructs a new {@link ListMetrics} object and starts its session.
+     *
+     * @param refreshRate float specifying the refresh rate of the display in frames per second.
+     */
+    public ListMetrics(float refreshRate) {
+        this.frameIntervalNanos = (long) (1000000000L / (refreshRate > 0 ? refreshRate : 60));
+        this.bindBucketCounts = new int[BIND_BUCKET_BOUNDS_NANOS.length + 1];
+        this.dataSetObserver = new DataSetObserver() {
+            @Override
+            public void onChanged() {
+                dataSetChangeCount++;
+            }
+
+            @Override
+            public void onInvalidated() {
+                dataSetChangeCount++;
+            }
+        };
+        this.onFrameMetricsAvailableListener = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N ? newOnFrameMetricsAvailableListener() : null;
+        reset();
+    }
+
+    /**
+     * Starts counting the data set changes of the given {@link Adapter}.
+     *
+     * @param adapter {@link Adapter} to watch.
+     */
+    public void watchAdapter(@NonNull Adapter adapter) {
+        adapter.registerDataSetObserver(dataSetObserver);
+    }
+
+    /**
+     * Starts recording the frames drawn in the given {@link Window}. Does nothing below API level
+     * 24.
+     *
+     * @param window {@link Window} to record the frames of.
+     */
+    public void startFrameTracking(@NonNull Window window) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            window.addOnFrameMetricsAvailableListener(onFrameMetricsAvailableListener, new Handler(Looper.getMainLooper()));
+        }
+    }
+
+    /**
+     * Stops recording the frames drawn in the given {@link Window}. Does nothing below API level
+     * 24.
+     *
+     * @param window {@link Window} to stop recording the frames of.
+     */
+    public void stopFrameTracking(@NonNull Window window) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            window.removeOnFrameMetricsAvailableListener(onFrameMetricsAvailableListener);
+        }
+    }
+
+    /**
+     * Sets whether the list is scrolling. Frames are only recorded while it is.
+     *
+     * @param scrolling Boolean representing whether the list is scrolling.
+     */
+    public void setScrolling(boolean scrolling) {
+        this.scrolling = scrolling;
+    }
+
+    /**
+     * Returns the start time of a bind, to be passed to {@link #endBind(long, boolean)}.
+     *
+     * @return long start time of a bind in nanoseconds.
+     */
+    public long startBind() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a bind that started at the given time.
+     *
+     * @param startNanos long start time returned by {@link #startBind()}.
+     * @param inflated   Boolean representing whether the row layout was newly inflated.
+     */
+    public void endBind(long startNanos, boolean inflated) {
+        long bindNanos = System.nanoTime() - startNanos;
+        bindCount++;
+        totalBindNanos += bindNanos;
+        maxBindNanos = Math.max(maxBindNanos, bindNanos);
+        if (inflated) {
+            inflationCount++;
+            totalInflatedBindNanos += bindNanos;
+        }
+        int bucket = 0;
+        while (bucket < BIND_BUCKET_BOUNDS_NANOS.length && bindNanos >= BIND_BUCKET_BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        bindBucketCounts[bucket]++;
+    }
+
+    /**
+     * Returns the share of frames drawn while scrolling that were janky.
+     *
+     * @return The share of janky frames, between 0 and 1.
+     */
+    public double getJankyFrameRate() {
+        return scrollFrameCount == 0 ? 0 : (double) jankyFrameCount / scrollFrameCount;
+    }
+
+    /**
+     * Clears the collected numbers and starts a new session.
+     */
+    public void reset() {
+        sessionStartMillis = SystemClock.elapsedRealtime();
+        bindCount = 0;
+        inflationCount = 0;
+        totalBindNanos = 0;
+        totalInflatedBindNanos = 0;
+        maxBindNanos = 0;
+        for (int bucket = 0; bucket < bindBucketCounts.length; bucket++) {
+            bindBucketCounts[bucket] = 0;
+        }
+        dataSetChangeCount = 0;
+        scrollFrameCount = 0;
+        jankyFrameCount = 0;
+        jankyLayoutNanos = 0;
+        jankyDrawNanos = 0;
+        jankyTotalNanos = 0;
+    }
+
+    /**
+     * Returns a plain text summary of the session. Janky frames are broken down into time spent
+     * in layout, which includes binding rows, drawing and everything else, so the report shows
+     * whether jank comes from binding or elsewhere.
+     *
+     * @return {@link String} summary of the session.
+     */
+    @NonNull
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.US, "Session: %.1f s%n", (SystemClock.elapsedRealtime() - sessionStartMillis) / 1000.0));
+
+        // Frames.
+        if (onFrameMetricsAvailableListener == null) {
+            report.append(String.format(Locale.US, "Scroll frames: unavailable below API level %d%n", Build.VERSION_CODES.N));
+        } else {
+            report.append(String.format(Locale.US, "Scroll frames: %d, janky: %d (%.1f%%)%n",
+                    scrollFrameCount, jankyFrameCount, getJankyFrameRate() * 100));
+            if (jankyFrameCount > 0) {
+                report.append(String.format(Locale.US, "Janky frame mean: %.2f ms (layout %.2f ms, draw %.2f ms, other %.2f ms)%n",
+                        toMillis(jankyTotalNanos / jankyFrameCount),
+                        toMillis(jankyLayoutNanos / jankyFrameCount),
+                        toMillis(jankyDrawNanos / jankyFrameCount),
+                        toMillis((jankyTotalNanos - jankyLayoutNanos - jankyDrawNanos) / jankyFrameCount)));
+            }
+        }
+
+        // Binds.
+        int reusedBindCount = bindCount - inflationCount;
+        report.append(String.format(Locale.US, "Binds: %d, inflations: %d%n", bindCount, inflationCount));
+        report.append(String.format(Locale.US, "Bind mean: %.3f ms inflated, %.3f ms reused, max %.3f ms%n",
+                inflationCount == 0 ? 0 : toMillis(totalInflatedBindNanos / inflationCount),
+                reusedBindCount == 0 ? 0 : toMillis((totalBindNanos - totalInflatedBindNanos) / reusedBindCount),
+                toMillis(maxBindNanos)));
+        report.append("Bind histogram:");
+        for (int bucket = 0; bucket < bindBucketCounts.length; bucket++) {
+            String bound = bucket < BIND_BUCKET_BOUNDS_NANOS.length
+                    ? String.format(Locale.US, "<%s", formatMillis(BIND_BUCKET_BOUNDS_NANOS[bucket]))
+                    : String.format(Locale.US, ">=%s", formatMillis(BIND_BUCKET_BOUNDS_NANOS[bucket - 1]));
+            report.append(' ').append(bound).append(": ").append(bindBucketCounts[bucket]);
+        }
+        report.append(String.format(Locale.US, "%nData set changes: %d", dataSetChangeCount));
+        return report.toString();
+    }
+
+    /**
+     * Returns a {@link Window.OnFrameMetricsAvailableListener} recording the frames drawn while
+     * the list scrolls.
+     *
+     * @return A {@link Window.OnFrameMetricsAvailableListener} recording frames.
+     */
+    @RequiresApi(Build.VERSION_CODES.N)
+    private Window.OnFrameMetricsAvailableListener newOnFrameMetricsAvailableListener() {
+        return new Window.OnFrameMetricsAvailableListener() {
+            @Override
+            public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+                if (!scrolling) {
+                    return;
+                }
+
+                // The FrameMetrics object is reused, so read its values right away.
+                long totalNanos = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+                scrollFrameCount++;
+                if (totalNanos > frameIntervalNanos) {
+                    jankyFrameCount++;
+                    jankyTotalNanos += totalNanos;
+                    jankyLayoutNanos += frameMetrics.getMetric(FrameMetrics.LAYOUT_MEASURE_DURATION);
+                    jankyDrawNanos += frameMetrics.getMetric(FrameMetrics.DRAW_DURATION);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the given number of nanoseconds in milliseconds.
+     *
+     * @param nanos long number of nanoseconds.
+     * @return double number of milliseconds.
+     */
+    private static double toMillis(long nanos) {
+        return nanos / 1000000.0;
+    }
+
+    /**
+     * Returns the given number of nanoseconds as a short millisecond label, like "0.25ms".
+     *
+     * @param nanos long number of nanoseconds.
+     * @return {@link String} millisecond label.
+     */
+    private static String formatMillis(long nanos) {
+        double millis = toMillis(nanos);
+        return millis == Math.floor(millis) ? String.format(Locale.US, "%dms", (long) millis) : String.format(Locale.US, "%.2fms", millis);
+    }
+}
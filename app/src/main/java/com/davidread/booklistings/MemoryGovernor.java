@@ -0,0 +1,186 @@
+package com.davidread.booklistings;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link MemoryGovernor} is a process-wide {@link ComponentCallbacks2} that turns the trim levels
+ * reported by the system into three tiers of memory pressure and passes them on to its
+ * {@link OnTrimListener} objects, which shed their state accordingly:
+ * <ul>
+ *     <li>{@link #TIER_OFF_SCREEN}: drop what is not on screen, such as pages outside of the
+ *     visible rows.</li>
+ *     <li>{@link #TIER_CACHES}: also drop in-memory caches that can be rebuilt.</li>
+ *     <li>{@link #TIER_ALL}: keep only what is needed to restore the visible rows.</li>
+ * </ul>
+ * {@link #TRIM_MEMORY_UI_HIDDEN} is not treated as memory pressure, since it is reported every
+ * time the UI is hidden, such as when a result is opened in the browser. Dropping pages then
+ * would only fetch them again once the user returns. It must only be used from the main thread.
+ */
+public class MemoryGovernor implements ComponentCallbacks2 {
+
+    /**
+     * int tier asking listeners to drop state that is not on screen.
+     */
+    public static final int TIER_OFF_SCREEN = 1;
+
+    /**
+     * int tier asking listeners to also drop in-memory caches.
+     */
+    public static final int TIER_CACHES = 2;
+
+    /**
+     * int tier asking listeners to keep only what is needed to restore the visible rows.
+     */
+    public static final int TIER_ALL = 3;
+
+    /**
+     * The single {@link MemoryGovernor} object of the process.
+     */
+    private static MemoryGovernor instance;
+
+    /**
+     * {@link List} of {@link OnTrimListener} objects notified of memory pressure.
+     */
+    private final List<OnTrimListener> onTrimListeners;
+
+    /**
+     * Constructs a new {@link MemoryGovernor} object.
+     */
+    private MemoryGovernor() {
+        onTrimListeners = new ArrayList<>();
+    }
+
+    /**
+     * Returns the single {@link MemoryGovernor} object of the process, creating and registering
+     * it if needed.
+     *
+     * @param context {@link Context} used for registering with the application on creation.
+     * @return The single {@link MemoryGovernor} object of the process.
+     */
+    @NonNull
+    public static MemoryGovernor getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new MemoryGovernor();
+            context.getApplicationContext().registerComponentCallbacks(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the tier of memory pressure for the given trim level, or 0 if there is none.
+     *
+     * @param level int trim level reported by the system.
+     * @return The tier of memory pressure for the given trim level, or 0.
+     */
+    public static int getTierForLevel(int level) {
+        switch (level) {
+            case TRIM_MEMORY_RUNNING_MODERATE:
+                return TIER_OFF_SCREEN;
+            case TRIM_MEMORY_UI_HIDDEN:
+                return 0;
+            case TRIM_MEMORY_RUNNING_LOW:
+            case TRIM_MEMORY_BACKGROUND:
+                return TIER_CACHES;
+            case TRIM_MEMORY_RUNNING_CRITICAL:
+            case TRIM_MEMORY_MODERATE:
+            case TRIM_MEMORY_COMPLETE:
+                return TIER_ALL;
+            default:
+                // Treat unknown levels by the range they fall in.
+                if (level >= TRIM_MEMORY_MODERATE) {
+                    return TIER_ALL;
+                } else if (level >= TRIM_MEMORY_BACKGROUND) {
+                    return TIER_CACHES;
+                }
+                return 0;
+        }
+    }
+
+    /**
+     * Adds an {@link OnTrimListener} to be notified of memory pressure.
+     *
+     * @param onTrimListener {@link OnTrimListener} to add.
+     */
+    public void addOnTrimListener(@NonNull OnTrimListener onTrimListener) {
+        if (!onTrimListeners.contains(onTrimListener)) {
+            onTrimListeners.add(onTrimListener);
+        }
+    }
+
+    /**
+     * Removes an {@link OnTrimListener} so it is no longer notified of memory pressure.
+     *
+     * @param onTrimListener {@link OnTrimListener} to remove.
+     */
+    public void removeOnTrimListener(@NonNull OnTrimListener onTrimListener) {
+        onTrimListeners.remove(onTrimListener);
+    }
+
+    /**
+     * Handles the trimMemory event. Pass the tier of memory pressure on to every
+     * {@link OnTrimListener} on this event.
+     *
+     * @param level int trim level reported by the system.
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        dispatchTrim(getTierForLevel(level));
+    }
+
+    /**
+     * Handles the lowMemory event. Pass {@link #TIER_ALL} on to every {@link OnTrimListener} on
+     * this event.
+     */
+    @Override
+    public void onLowMemory() {
+        dispatchTrim(TIER_ALL);
+    }
+
+    /**
+     * Handles the configurationChanged event. Do nothing on this event.
+     *
+     * @param newConfig {@link Configuration} of the device.
+     */
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    /**
+     * Passes the given tier on to every {@link OnTrimListener}.
+     *
+     * @param tier int tier of memory pressure.
+     */
+    private void dispatchTrim(int tier) {
+        if (tier == 0) {
+            return;
+        }
+        Log.i(MemoryGovernor.class.getSimpleName(), "Shedding memory at tier " + tier);
+
+        // Iterate over a copy, since listeners may remove themselves.
+        for (OnTrimListener onTrimListener : new ArrayList<>(onTrimListeners)) {
+            onTrimListener.onTrim(tier);
+        }
+    }
+
+    /**
+     * {@link OnTrimListener} is notified when it should shed state because of memory pressure.
+     */
+    public interface OnTrimListener {
+
+        /**
+         * Called on the main thread when state should be shed.
+         *
+         * @param tier int tier of memory pressure. One of {@link #TIER_OFF_SCREEN},
+         *             {@link #TIER_CACHES} or {@link #TIER_ALL}.
+         */
+        void onTrim(int tier);
+    }
+}
@@ -0,0 +1,161 @@
+package com.davidread.booklistings;
+
+import android.app.SearchManager;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.provider.BaseColumns;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * {@link QuerySuggestions} is a process-wide source of local query suggestions for the
+ * {@link androidx.appcompat.widget.SearchView} in {@link SearchActivity}. It indexes submitted
+ * query terms along with the titles and authors of fetched {@link Book} objects in a
+ * {@link SuggestionTrie}. Under memory pressure, the index is rebuilt from the
+ * {@link RecentQueries} alone. It must only be used from the main thread.
+ */
+public class QuerySuggestions {
+
+    /**
+     * {@link String} array of the column names of the {@link Cursor} returned by
+     * {@link #getSuggestionsCursor(CharSequence)}.
+     */
+    public static final String[] COLUMNS = {BaseColumns._ID, SearchManager.SUGGEST_COLUMN_TEXT_1};
+
+    /**
+     * double weight of a query term submitted by the user.
+     */
+    private static final double QUERY_WEIGHT = 4;
+
+    /**
+     * double weight of a title or author of a fetched {@link Book} object.
+     */
+    private static final double BOOK_WEIGHT = 1;
+
+    /**
+     * The single {@link QuerySuggestions} object of the process.
+     */
+    private static QuerySuggestions instance;
+
+    /**
+     * {@link SuggestionTrie} indexing the suggestion terms.
+     */
+    private final SuggestionTrie suggestionTrie;
+
+    /**
+     * {@link String} array reused for every lookup.
+     */
+    private final String[] suggestions;
+
+    /**
+     * {@link Context} used for reading the {@link RecentQueries}.
+     */
+    private final Context context;
+
+    /**
+     * {@link MemoryGovernor.OnTrimListener} defines how the index sheds memory.
+     */
+    private final MemoryGovernor.OnTrimListener onTrimListener = new MemoryGovernor.OnTrimListener() {
+
+        /**
+         * Handles trim event. Drop the indexed titles and authors by rebuilding the index from
+         * the {@link RecentQueries} once in-memory caches should go.
+         *
+         * @param tier int tier of memory pressure.
+         */
+        @Override
+        public void onTrim(int tier) {
+            if (tier >= MemoryGovernor.TIER_CACHES) {
+                suggestionTrie.clear();
+                addRecentQueries();
+            }
+        }
+    };
+
+    /**
+     * Constructs a new {@link QuerySuggestions} object seeded with the {@link RecentQueries}.
+     *
+     * @param context {@link Context} used for reading the {@link RecentQueries}.
+     */
+    private QuerySuggestions(@NonNull Context context) {
+        this.suggestionTrie = new SuggestionTrie();
+        this.suggestions = new String[SuggestionTrie.MAX_SUGGESTIONS];
+        this.context = context;
+        addRecentQueries();
+        MemoryGovernor.getInstance(context).addOnTrimListener(onTrimListener);
+    }
+
+    /**
+     * Returns the single {@link QuerySuggestions} object of the process, creating it if needed.
+     *
+     * @param context {@link Context} used for reading the {@link RecentQueries} on creation.
+     * @return The single {@link QuerySuggestions} object of the process.
+     */
+    @NonNull
+    public static QuerySuggestions getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new QuerySuggestions(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a query term submitted by the user. Counts as one tick of the {@link SuggestionTrie}
+     * clock.
+     *
+     * @param query {@link String} query term submitted by the user.
+     */
+    public void addQuery(String query) {
+        suggestionTrie.add(query, QUERY_WEIGHT);
+        suggestionTrie.tick();
+    }
+
+    /**
+     * Adds the titles and authors of the given {@link Book} objects. The whole page counts as one
+     * tick of the {@link SuggestionTrie} clock, so a page of results does not outrank the query
+     * terms submitted before it.
+     *
+     * @param books {@link List} of fetched {@link Book} objects.
+     */
+    public void addBooks(@NonNull List<Book> books) {
+        for (Book book : books) {
+            suggestionTrie.add(book.getTitle(), BOOK_WEIGHT);
+            for (String author : book.getAuthors()) {
+                suggestionTrie.add(author, BOOK_WEIGHT);
+            }
+        }
+        suggestionTrie.tick();
+    }
+
+    /**
+     * Returns a {@link Cursor} with {@link #COLUMNS} holding the best ranked suggestions for the
+     * given prefix.
+     *
+     * @param prefix {@link CharSequence} typed by the user.
+     * @return A {@link Cursor} holding the best ranked suggestions for the given prefix.
+     */
+    @NonNull
+    public Cursor getSuggestionsCursor(CharSequence prefix) {
+        int count = prefix.length() == 0 ? 0 : suggestionTrie.lookup(prefix, suggestions);
+        MatrixCursor cursor = new MatrixCursor(COLUMNS, count);
+        for (int index = 0; index < count; index++) {
+            cursor.addRow(new Object[]{index, suggestions[index]});
+        }
+        return cursor;
+    }
+
+    /**
+     * Adds every query term in the {@link RecentQueries}.
+     */
+    private void addRecentQueries() {
+
+        // Add the oldest recent query first so the most recent one gets the highest boost.
+        List<String> recentQueries = new RecentQueries(context).getQueries();
+        for (int index = recentQueries.size() - 1; index >= 0; index--) {
+            addQuery(recentQueries.get(index));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.davidread.booklistings;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link RecentQueries} is a utility class that persists the query terms most recently submitted
+ * by the user in {@link SharedPreferences}, most recent first.
+ */
+public class RecentQueries {
+
+    /**
+     * {@link String} name of the {@link SharedPreferences} file holding the recent queries.
+     */
+    private static final String PREFERENCES_NAME = "recent_queries";
+
+    /**
+     * {@link String} key under which the recent queries are stored as a JSON array.
+     */
+    private static final String PREFERENCE_QUERIES = "preference_queries";
+
+    /**
+     * int specifying how many recent queries are kept.
+     */
+    private static final int MAX_QUERIES = 10;
+
+    /**
+     * {@link SharedPreferences} holding the recent queries.
+     */
+    private final SharedPreferences sharedPreferences;
+
+    /**
+     * Constructs a new {@link RecentQueries} object.
+     *
+     * @param context {@link Context} used for opening the {@link SharedPreferences} file.
+     */
+    public RecentQueries(@NonNull Context context) {
+        this.sharedPreferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Returns a {@link List} of the recent query terms, most recent first.
+     *
+     * @return {@link List} of the recent query terms, most recent first.
+     */
+    @NonNull
+    public synchronized List<String> getQueries() {
+        List<String> queries = new ArrayList<>();
+        try {
+            JSONArray queriesJsonArray = new JSONArray(sharedPreferences.getString(PREFERENCE_QUERIES, "[]"));
+            for (int index = 0; index < queriesJsonArray.length(); index++) {
+                queries.add(queriesJsonArray.getString(index));
+            }
+        } catch (JSONException e) {
+            Log.e(RecentQueries.class.getSimpleName(), "Error parsing recent queries", e);
+        }
+        return queries;
+    }
+
+    /**
+     * Moves the given query term to the front of the recent queries, dropping the oldest query
+     * term if more than {@link #MAX_QUERIES} are stored.
+     *
+     * @param query {@link String} query term submitted by the user.
+     */
+    public synchronized void add(String query) {
+        String trimmedQuery = query.trim();
+        if (trimmedQuery.isEmpty()) {
+            return;
+        }
+
+        List<String> queries = getQueries();
+        for (int index = queries.size() - 1; index >= 0; index--) {
+            if (queries.get(index).equalsIgnoreCase(trimmedQuery)) {
+                queries.remove(index);
+            }
+        }
+        queries.add(0, trimmedQuery);
+
+        JSONArray queriesJsonArray = new JSONArray();
+        for (int index = 0; index < queries.size() && index < MAX_QUERIES; index++) {
+            queriesJsonArray.put(queries.get(index));
+        }
+        sharedPreferences.edit().putString(PREFERENCE_QUERIES, queriesJsonArray.toString()).apply();
+    }
+}
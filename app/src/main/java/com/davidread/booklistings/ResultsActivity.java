@@ -1,12 +1,12 @@
 package com.davidread.booklistings;
 
-import android.app.AlertDialog;
-import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.webkit.URLUtil;
@@ -17,12 +17,17 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.Lifecycle;
 import androidx.loader.app.LoaderManager;
 import androidx.loader.content.Loader;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * {@link ResultsActivity} is an activity class whose user interface has a {@link ListView}
@@ -33,7 +38,11 @@ public class ResultsActivity extends AppCompatActivity {
     /**
      * {@link String} names for {@link Bundle} objects used in this activities.
      */
-    private static final String BUNDLE_NEXT_BOOK_LOADER_ID = "bundle_next_book_loader_id";
+    private static final String BUNDLE_PAGE_SIZES = "bundle_page_sizes";
+    private static final String BUNDLE_RESULTS_PER_PAGE = "bundle_results_per_page";
+    private static final String BUNDLE_VIEW = "bundle_view";
+    private static final String BUNDLE_BOOK_KEYS = "bundle_book_keys";
+    private static final String BUNDLE_BOOK_KEY_COUNTS = "bundle_book_key_counts";
 
     /**
      * {@link android.widget.AdapterView.OnItemClickListener} defines how the {@link ListView}
@@ -56,8 +65,8 @@ public class ResultsActivity extends AppCompatActivity {
             // Get Book object associated with the clicked item.
             Book book = (Book) parent.getAdapter().getItem(position);
 
-            // Do nothing if the Book object has an invalid URL.
-            if (!URLUtil.isValidUrl(book.getUrl())) {
+            // Do nothing if the item is a placeholder or the Book object has an invalid URL.
+            if (book == null || !URLUtil.isValidUrl(book.getUrl())) {
                 return;
             }
 
@@ -75,7 +84,8 @@ public class ResultsActivity extends AppCompatActivity {
     private final AbsListView.OnScrollListener onScrollListener = new AbsListView.OnScrollListener() {
 
         /**
-         * Handles scrollStateChanged event. Do nothing on this event.
+         * Handles scrollStateChanged event. Tell the {@link ListMetrics} whether the list is
+         * scrolling on this event.
          *
          * @param view          {@link View} whose scroll state is being reported.
          * @param scrollState   int representing the current scroll state. 0 means SCROLL_STATE_IDLE
@@ -83,12 +93,13 @@ public class ResultsActivity extends AppCompatActivity {
          */
         @Override
         public void onScrollStateChanged(AbsListView view, int scrollState) {
-
+            listMetrics.setScrolling(scrollState != SCROLL_STATE_IDLE);
         }
 
         /**
-         * Handles scroll event. On this event, initialize a new {@link BookLoader} if all the
-         * appropriate conditions are met.
+         * Handles scroll event. On this event, drop pages that are far from the visible window,
+         * reload dropped pages that are scrolled back into the window, and initialize a new
+         * {@link BookLoader} for the next page if all the appropriate conditions are met.
          *
          * @param view              {@link View} whose scroll state is being reported.
          * @param firstVisibleItem  The index of the first visible item.
@@ -98,34 +109,126 @@ public class ResultsActivity extends AppCompatActivity {
         @Override
         public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
 
-            // Do nothing if the last item is not visible.
-            boolean lastItemVisible = view.getLastVisiblePosition() == totalItemCount - 1;
-            if (!lastItemVisible) {
-                return;
+            // Keep only the pages around the visible window in memory.
+            if (bookAdapter.getCount() > 0 && visibleItemCount > 0) {
+                int lastVisibleItem = Math.min(firstVisibleItem + visibleItemCount, bookAdapter.getCount()) - 1;
+                updatePageWindow(Math.min(firstVisibleItem, lastVisibleItem), lastVisibleItem);
             }
 
-            // Do nothing if book loading is disabled.
-            if (!bookLoadingEnabled) {
-                return;
+            loadNextPageIfNeeded(view.getLastVisiblePosition(), totalItemCount);
+        }
+    };
+
+    /**
+     * {@link ConnectivityMonitor.OnNetworkClassChangedListener} defines how this activity follows
+     * the network.
+     */
+    private final ConnectivityMonitor.OnNetworkClassChangedListener onNetworkClassChangedListener = new ConnectivityMonitor.OnNetworkClassChangedListener() {
+
+        /**
+         * Handles networkClassChanged event. On this event, apply the {@link DataPolicy} of the
+         * new network, and fetch the next page if it was held back while the device was offline.
+         *
+         * @param networkClass int class of the current network.
+         */
+        @Override
+        public void onNetworkClassChanged(int networkClass) {
+            dataPolicy = DataPolicy.getCurrent(ResultsActivity.this);
+            ListView listView = findViewById(R.id.book_list_view);
+            if (bookAdapter.getCount() > 0) {
+                loadNextPageIfNeeded(listView.getLastVisiblePosition(), listView.getCount());
             }
+        }
+    };
 
-            // Do nothing if a BookLoader with this id has already been initialized.
-            if (getLoaderManager().getLoader(nextBookLoaderId) != null) {
-                return;
+    /**
+     * {@link BookLoader.OnBooksParsedListener} defines how rows are shown while a
+     * {@link BookLoader} is still loading.
+     */
+    private final BookLoader.OnBooksParsedListener onBooksParsedListener = new BookLoader.OnBooksParsedListener() {
+
+        /**
+         * Handles booksParsed event. On this event, add the parsed {@link Book} objects to the
+         * page being appended, opening the page on the first batch. Batches of reloaded pages are
+         * ignored, since their placeholders are replaced once the load finishes.
+         *
+         * @param bookLoader    {@link BookLoader} that parsed the batch.
+         * @param books         {@link List} of {@link Book} objects in the batch.
+         */
+        @Override
+        public void onBooksParsed(@NonNull BookLoader bookLoader, @NonNull List<Book> books) {
+            int pageIndex = bookLoader.getId();
+            if (pageIndex == bookAdapter.getOpenPageIndex()) {
+                bookAdapter.extendOpenPage(books);
+            } else if (pageIndex == bookAdapter.getPageCount()) {
+                bookAdapter.openPage(books);
             }
+        }
+    };
 
-            // Return early and disable book loading if the device is not connected to the Internet.
-            ConnectivityManager connectivityManager = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
-            NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
-            boolean isDeviceConnected = activeNetworkInfo != null && activeNetworkInfo.isConnectedOrConnecting();
-            if (!isDeviceConnected) {
-                bookLoadingEnabled = false;
+    /**
+     * {@link MemoryGovernor.OnTrimListener} defines how this activity sheds memory.
+     */
+    private final MemoryGovernor.OnTrimListener onTrimListener = new MemoryGovernor.OnTrimListener() {
+
+        /**
+         * Handles trim event. On this event, drop every page that is not visible along with its
+         * {@link BookLoader}. At {@link MemoryGovernor#TIER_OFF_SCREEN}, keep the pages next to
+         * the visible pages of the relevance view as well, since scrolling would reload them
+         * right away. At {@link MemoryGovernor#TIER_ALL} while this activity is not shown, drop
+         * the visible pages as well. Only the page sizes are kept, which is enough to
+         * restore the visible rows as placeholders and reload them from the {@link BookCache}.
+         *
+         * @param tier int tier of memory pressure.
+         */
+        @Override
+        public void onTrim(int tier) {
+            if (bookAdapter.getCount() == 0) {
                 return;
             }
 
-            // Initialize a new BookLoader if we don't return early.
-            LoaderManager.getInstance(ResultsActivity.this).initLoader(nextBookLoaderId, null, loaderCallbacks);
-            nextBookLoaderId++;
+            // Find the pages to keep. In a sorted view, the visible rows may belong to any page.
+            SparseBooleanArray keptPageIndices = new SparseBooleanArray();
+            boolean shown = getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED);
+            if (tier < MemoryGovernor.TIER_ALL || shown) {
+                ListView listView = findViewById(R.id.book_list_view);
+                int lastVisiblePosition = Math.min(listView.getLastVisiblePosition(), bookAdapter.getCount() - 1);
+                int firstVisiblePosition = Math.max(0, Math.min(listView.getFirstVisiblePosition(), lastVisiblePosition));
+                for (int position = firstVisiblePosition; position <= lastVisiblePosition; position++) {
+                    keptPageIndices.put(bookAdapter.getPageIndexForPosition(position), true);
+                }
+                if (tier == MemoryGovernor.TIER_OFF_SCREEN && bookAdapter.getOrdering() == null) {
+                    keptPageIndices.put(bookAdapter.getPageIndexForPosition(firstVisiblePosition) - 1, true);
+                    keptPageIndices.put(bookAdapter.getPageIndexForPosition(lastVisiblePosition) + 1, true);
+                }
+            }
+
+            // Drop the other pages along with their loaders.
+            LoaderManager loaderManager = LoaderManager.getInstance(ResultsActivity.this);
+            for (int pageIndex : bookAdapter.trimToPages(keptPageIndices)) {
+                loaderManager.destroyLoader(pageIndex);
+            }
+        }
+    };
+
+    /**
+     * {@link BookOrderings.OnOrderingsUpdatedListener} defines how sorted views follow the loaded
+     * results.
+     */
+    private final BookOrderings.OnOrderingsUpdatedListener onOrderingsUpdatedListener = new BookOrderings.OnOrderingsUpdatedListener() {
+
+        /**
+         * Handles orderingsUpdated event. On this event, keep the updated orderings and show the
+         * one of the selected view if the results are sorted.
+         *
+         * @param updatedOrderings {@link BookOrdering} array holding the ordering of every view.
+         */
+        @Override
+        public void onOrderingsUpdated(@NonNull BookOrdering[] updatedOrderings) {
+            orderings = updatedOrderings;
+            if (view != BookOrdering.VIEW_RELEVANCE) {
+                bookAdapter.setOrdering(orderings[view]);
+            }
         }
     };
 
@@ -136,11 +239,12 @@ public class ResultsActivity extends AppCompatActivity {
     private final LoaderManager.LoaderCallbacks<List<Book>> loaderCallbacks = new LoaderManager.LoaderCallbacks<List<Book>>() {
 
         /**
-         * Handles createLoader event. On this event, disable further {@link BookLoader} objects
-         * from being initialized, show a loading dialog in the UI, and initialize a new
-         * {@link BookLoader}.
+         * Handles createLoader event. On this event, initialize a new {@link BookLoader} for the
+         * page matching the given id. If the page is a new page, also disable further
+         * {@link BookLoader} objects from being initialized and show the loading footer in the
+         * UI.
          *
-         * @param id    Int id for the {@link BookLoader} object.
+         * @param id    Int id for the {@link BookLoader} object. Matches the index of the page.
          * @param args  {@link Bundle} containing arguments for the {@link BookLoader}.
          * @return A new {@link BookLoader} object.
          */
@@ -148,30 +252,32 @@ public class ResultsActivity extends AppCompatActivity {
         @Override
         public Loader<List<Book>> onCreateLoader(int id, @Nullable Bundle args) {
 
-            // Disable further book loading.
-            bookLoadingEnabled = false;
+            // Only show the loading footer for a new page. Reloaded pages show placeholders.
+            if (id == bookAdapter.getPageCount()) {
+
+                // Disable further book loading.
+                bookLoadingEnabled = false;
 
-            // Show a loading dialog in the UI.
-            if (loadingAlertDialog == null) {
-                AlertDialog.Builder builder = new AlertDialog.Builder(ResultsActivity.this);
-                builder.setView(getLayoutInflater().inflate(R.layout.dialog_loading, null));
-                builder.setCancelable(false);
-                loadingAlertDialog = builder.create();
+                // Show the loading footer in the UI.
+                loadingFooterContent.setVisibility(View.VISIBLE);
             }
-            loadingAlertDialog.show();
 
-            // Initialize a new BookLoader.
-            ListView listView = findViewById(R.id.book_list_view);
-            int startIndex = listView.getCount();
-            return new BookLoader(ResultsActivity.this, query, startIndex);
+            // Initialize a new BookLoader, or a BatchBookLoader for a batch search.
+            int startIndex = id * resultsPerPage;
+            if (batchSearch) {
+                return new BatchBookLoader(ResultsActivity.this, query, startIndex, resultsPerPage, getBookKeysBefore(id));
+            }
+            return new BookLoader(ResultsActivity.this, query, startIndex, resultsPerPage);
         }
 
         /**
-         * Handles loadFinished event. On this event, add the fetched {@link List} to the
-         * {@link ListView} adapter, hide the loading dialog in the UI, and enable further
-         * {@link BookLoader} objects from being initialized. Only do these things if the BookLoader
-         * has not already added its load to the {@link ListView} adapter or if the fetched
-         * {@link List} is not empty.
+         * Handles loadFinished event. If the {@link BookLoader} reloaded a dropped page, put the
+         * fetched {@link List} back into the {@link ListView} adapter, or destroy the loader if
+         * the reload failed. If it loaded a new page, complete the page in the adapter, hide the
+         * loading footer in the UI, and enable further {@link BookLoader} objects from being
+         * initialized. Only do these things if the BookLoader has not already added its load to
+         * the adapter or if the fetched {@link List} is not empty. If a page that streamed in
+         * part of its rows comes back empty, drop the page so it can be loaded again.
          *
          * @param loader    {@link BookLoader} object that completed the load.
          * @param data      {@link List} of {@link Book} objects fetched during the load.
@@ -179,18 +285,40 @@ public class ResultsActivity extends AppCompatActivity {
         @Override
         public void onLoadFinished(@NonNull Loader<List<Book>> loader, List<Book> data) {
 
-            // Hide the loading dialog if not already.
-            if (loadingAlertDialog != null) {
-                loadingAlertDialog.hide();
+            /* Put a reloaded page back into the adapter. If the reload failed or came back short,
+             * destroy its loader so the page is reloaded the next time it is scrolled into view. */
+            int pageIndex = loader.getId();
+            boolean isOpenPage = pageIndex == bookAdapter.getOpenPageIndex();
+            if (pageIndex < bookAdapter.getPageCount() && !isOpenPage) {
+                if (bookAdapter.setPage(pageIndex, data)) {
+                    List<Book> pageBooks = data.subList(0, bookAdapter.getPageSize(pageIndex));
+                    bookOrderings.addPage(bookAdapter.getPageOffset(pageIndex), pageBooks);
+                } else {
+                    LoaderManager.getInstance(ResultsActivity.this).destroyLoader(pageIndex);
+                }
+                return;
             }
 
+            // Hide the loading footer if not already.
+            loadingFooterContent.setVisibility(View.GONE);
+
             // Do nothing if this BookLoader has already added its load to the ListView.
-            BookLoader bookLoader = (BookLoader) loader;
             ListView listView = findViewById(R.id.book_list_view);
-            if (bookLoader.getStartIndex() != listView.getCount()) {
+            if (pageIndex != bookAdapter.getPageCount() && !isOpenPage) {
                 return;
             }
 
+            /* Drop a streamed page whose load failed, and destroy its loader so it is loaded again
+             * the next time the end of the list is reached. */
+            if (isOpenPage && data.isEmpty()) {
+                bookAdapter.dropOpenPage();
+                LoaderManager.getInstance(ResultsActivity.this).destroyLoader(pageIndex);
+                if (bookAdapter.getCount() > 0) {
+                    bookLoadingEnabled = true;
+                    return;
+                }
+            }
+
             // Show the empty view and do not re-enable book loading if the fetched List is empty.
             if (data.isEmpty()) {
                 TextView emptyTextView = findViewById(R.id.empty_book_list_text_view);
@@ -198,9 +326,23 @@ public class ResultsActivity extends AppCompatActivity {
                 return;
             }
 
-            // Add the List to the adapter and re-enable book loading.
-            BookAdapter bookAdapter = (BookAdapter) listView.getAdapter();
-            bookAdapter.addAll(data);
+            /* Complete the streamed page in the adapter, or add the List as a new page if nothing
+             * was streamed, and re-enable book loading. Merge it into the sorted views and index
+             * its titles and authors for local query suggestions. */
+            if (isOpenPage) {
+                bookAdapter.closeOpenPage(data);
+            } else {
+                bookAdapter.appendPage(data);
+            }
+            bookOrderings.addPage(bookAdapter.getPageOffset(pageIndex), data);
+            if (batchSearch) {
+                ArrayList<String> bookKeys = new ArrayList<>();
+                for (Book book : data) {
+                    bookKeys.add(BatchBookLoader.getBookKey(book));
+                }
+                pageBookKeys.add(bookKeys);
+            }
+            QuerySuggestions.getInstance(ResultsActivity.this).addBooks(data);
             bookLoadingEnabled = true;
         }
 
@@ -219,20 +361,68 @@ public class ResultsActivity extends AppCompatActivity {
      */
     private String query;
 
+    /**
+     * Boolean representing whether the query term holds several query terms that are searched
+     * at once by a {@link BatchBookLoader}.
+     */
+    private boolean batchSearch;
+
+    /**
+     * {@link List} holding, for every page appended by a batch search, the key of every
+     * {@link Book} object on it, so later pages leave them out.
+     */
+    private List<ArrayList<String>> pageBookKeys;
+
     /**
      * Boolean representing whether new {@link BookLoader} objects may be initialized.
      */
     private boolean bookLoadingEnabled;
 
     /**
-     * Int representing the next id that may be assigned to a {@link BookLoader}.
+     * {@link BookAdapter} backing the {@link ListView}.
+     */
+    private BookAdapter bookAdapter;
+
+    /**
+     * {@link View} inside the {@link ListView} footer that is shown to indicate loading
+     * operations.
+     */
+    private View loadingFooterContent;
+
+    /**
+     * {@link ListMetrics} collecting rendering metrics of the {@link ListView}.
      */
-    private int nextBookLoaderId;
+    private ListMetrics listMetrics;
 
     /**
-     * {@link AlertDialog} that is shown to indicate loading operations.
+     * {@link DataPolicy} of the current network.
      */
-    private AlertDialog loadingAlertDialog;
+    private DataPolicy dataPolicy;
+
+    /**
+     * int specifying how many results are fetched per page. Chosen by the {@link DataPolicy}
+     * when the search starts and kept for the rest of it, since page indices map to start
+     * indices with it.
+     */
+    private int resultsPerPage;
+
+    /**
+     * {@link BookOrderings} computing the sorted views of the loaded results in the background.
+     */
+    private BookOrderings bookOrderings;
+
+    /**
+     * {@link BookOrdering} array holding the latest ordering of every view, or null if none has
+     * been computed yet.
+     */
+    @Nullable
+    private BookOrdering[] orderings;
+
+    /**
+     * int representing the view selected by the user. One of the view constants of
+     * {@link BookOrdering}.
+     */
+    private int view;
 
     /**
      * Handles the create event for this activity. Initialize global variables and the UI on this
@@ -246,8 +436,26 @@ public class ResultsActivity extends AppCompatActivity {
 
         // Set global variables.
         query = getIntent().getStringExtra(SearchActivity.INTENT_EXTRA_QUERY);
+        batchSearch = BatchBookLoader.parseQueries(query).size() > 1;
+        pageBookKeys = new ArrayList<>();
         bookLoadingEnabled = true;
-        nextBookLoaderId = 0;
+        bookAdapter = new BookAdapter(this);
+        listMetrics = new ListMetrics(getWindowManager().getDefaultDisplay().getRefreshRate());
+        bookAdapter.setListMetrics(listMetrics);
+        listMetrics.watchAdapter(bookAdapter);
+        MemoryGovernor.getInstance(this).addOnTrimListener(onTrimListener);
+        dataPolicy = DataPolicy.getCurrent(this);
+        resultsPerPage = dataPolicy.getPageSize();
+        if (savedInstanceState != null) {
+            resultsPerPage = savedInstanceState.getInt(BUNDLE_RESULTS_PER_PAGE, resultsPerPage);
+        }
+        ConnectivityMonitor.getInstance(this).addOnNetworkClassChangedListener(onNetworkClassChangedListener);
+        bookOrderings = new BookOrderings(this);
+        bookOrderings.setOnOrderingsUpdatedListener(onOrderingsUpdatedListener);
+        view = BookOrdering.VIEW_RELEVANCE;
+        if (savedInstanceState != null) {
+            view = savedInstanceState.getInt(BUNDLE_VIEW, view);
+        }
 
         // Initialize UI.
         setContentView(R.layout.activity_results);
@@ -255,14 +463,70 @@ public class ResultsActivity extends AppCompatActivity {
             getSupportActionBar().setTitle(getString(R.string.app_bar_title_results, query));
         }
         ListView listView = findViewById(R.id.book_list_view);
-        listView.setAdapter(new BookAdapter(this, new ArrayList<>()));
+        View loadingFooter = getLayoutInflater().inflate(R.layout.list_footer_loading, listView, false);
+        loadingFooterContent = loadingFooter.findViewById(R.id.loading_footer_content);
+        listView.addFooterView(loadingFooter, null, false);
+
+        // Take the row text metrics before the first page is loaded so it is laid out in advance.
+        bookAdapter.prepareRowText(listView);
+        listView.setAdapter(bookAdapter);
         listView.setOnItemClickListener(onItemClickListener);
         listView.setOnScrollListener(onScrollListener);
     }
 
+    /**
+     * Handles the resume event for this activity. Start recording frames and pick up a changed
+     * data saver setting on this event.
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+        listMetrics.startFrameTracking(getWindow());
+        dataPolicy = DataPolicy.getCurrent(this);
+    }
+
+    /**
+     * Handles the pause event for this activity. Stop recording frames and log the
+     * {@link ListMetrics} report on this event.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        listMetrics.stopFrameTracking(getWindow());
+        Log.i(ListMetrics.class.getSimpleName(), listMetrics.getReport());
+    }
+
+    /**
+     * Handles the destroy event for this activity. Stop listening for memory pressure and
+     * network changes, and stop computing sorted views on this event.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        MemoryGovernor.getInstance(this).removeOnTrimListener(onTrimListener);
+        ConnectivityMonitor.getInstance(this).removeOnNetworkClassChangedListener(onNetworkClassChangedListener);
+        bookOrderings.shutdown();
+    }
+
+    /**
+     * Handles the createOptionsMenu event for the app bar. Inflate the menu, check the selected
+     * view, and show the debug items in debug builds on this event.
+     *
+     * @param menu {@link Menu} object in the app bar.
+     * @return Whether the menu should be displayed.
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_results, menu);
+        menu.findItem(getMenuItemId(view)).setChecked(true);
+        menu.findItem(R.id.list_metrics).setVisible(BuildConfig.DEBUG);
+        return true;
+    }
+
     /**
      * Handles the optionsItemSelected event for the app bar. Use this handler to have the up
-     * button mimic the back button's behavior when it's clicked.
+     * button mimic the back button's behavior when it's clicked, to switch between sorted views,
+     * and to show the {@link ListMetrics} report.
      *
      * @param item {@link MenuItem} clicked during this event.
      * @return Whether the optionsItemSelected event was handled by this handler.
@@ -273,34 +537,294 @@ public class ResultsActivity extends AppCompatActivity {
             onBackPressed();
             return true;
         }
+        if (item.getItemId() == R.id.list_metrics) {
+            showListMetricsDialog();
+            return true;
+        }
+        for (int itemView = BookOrdering.VIEW_RELEVANCE; itemView < BookOrderings.VIEW_COUNT; itemView++) {
+            if (item.getItemId() == getMenuItemId(itemView)) {
+                item.setChecked(true);
+                setView(itemView);
+                return true;
+            }
+        }
         return super.onOptionsItemSelected(item);
     }
 
     /**
-     * Handles the saveInstanceState event for this activity. Save the value stored in the global
-     * nextBookLoaderId variable on this event.
+     * Handles the saveInstanceState event for this activity. Save the size of every page in the
+     * {@link BookAdapter}, the number of results fetched per page, and the keys of the
+     * {@link Book} objects on every page of a batch search on this event.
      *
      * @param outState {@link Bundle} object preserved during the configuration change.
      */
     @Override
     protected void onSaveInstanceState(@NonNull Bundle outState) {
         super.onSaveInstanceState(outState);
-        outState.putInt(BUNDLE_NEXT_BOOK_LOADER_ID, nextBookLoaderId);
+        outState.putIntArray(BUNDLE_PAGE_SIZES, bookAdapter.getPageSizes());
+        outState.putInt(BUNDLE_RESULTS_PER_PAGE, resultsPerPage);
+        outState.putInt(BUNDLE_VIEW, view);
+
+        // Save the keys of every page flattened into one list, along with the count of each page.
+        ArrayList<String> bookKeys = new ArrayList<>();
+        int[] bookKeyCounts = new int[pageBookKeys.size()];
+        for (int pageIndex = 0; pageIndex < pageBookKeys.size(); pageIndex++) {
+            bookKeys.addAll(pageBookKeys.get(pageIndex));
+            bookKeyCounts[pageIndex] = pageBookKeys.get(pageIndex).size();
+        }
+        outState.putStringArrayList(BUNDLE_BOOK_KEYS, bookKeys);
+        outState.putIntArray(BUNDLE_BOOK_KEY_COUNTS, bookKeyCounts);
     }
 
     /**
-     * Handles the restoreInstanceState event for this activity. Restore the value stored in the
-     * global nextBookLoaderId variable and initialize all previously initialized {@link BookLoader}
-     * objects on this event.
+     * Handles the restoreInstanceState event for this activity. Restore the shape of the list with
+     * placeholder pages, rebuild the sorted views from the {@link BookCache}, restore the keys of
+     * the {@link Book} objects on every page of a batch search, and reattach every
+     * {@link BookLoader} that is still alive on this event. Pages whose loaders were dropped are
+     * reloaded once they are scrolled into view.
      *
      * @param savedInstanceState {@link Bundle} object preserved during the configuration change.
      */
     @Override
     protected void onRestoreInstanceState(@NonNull Bundle savedInstanceState) {
         super.onRestoreInstanceState(savedInstanceState);
-        nextBookLoaderId = savedInstanceState.getInt(BUNDLE_NEXT_BOOK_LOADER_ID);
-        for (int id = 0; id < nextBookLoaderId; id++) {
-            LoaderManager.getInstance(ResultsActivity.this).initLoader(id, null, loaderCallbacks);
+        int[] pageSizes = savedInstanceState.getIntArray(BUNDLE_PAGE_SIZES);
+        if (pageSizes != null) {
+            bookAdapter.appendPlaceholderPages(pageSizes);
+            bookOrderings.addCachedPages(query, resultsPerPage, pageSizes);
+        }
+        ArrayList<String> bookKeys = savedInstanceState.getStringArrayList(BUNDLE_BOOK_KEYS);
+        int[] bookKeyCounts = savedInstanceState.getIntArray(BUNDLE_BOOK_KEY_COUNTS);
+        if (bookKeys != null && bookKeyCounts != null) {
+            int offset = 0;
+            for (int bookKeyCount : bookKeyCounts) {
+                pageBookKeys.add(new ArrayList<>(bookKeys.subList(offset, offset + bookKeyCount)));
+                offset += bookKeyCount;
+            }
+        }
+        LoaderManager loaderManager = LoaderManager.getInstance(ResultsActivity.this);
+        for (int id = 0; id <= bookAdapter.getPageCount(); id++) {
+            if (loaderManager.getLoader(id) != null) {
+                initBookLoader(id);
+            }
+        }
+
+        // Keep showing the loading footer if a new page is still loading.
+        if (loaderManager.getLoader(bookAdapter.getPageCount()) != null) {
+            bookLoadingEnabled = false;
+            loadingFooterContent.setVisibility(View.VISIBLE);
+        }
+    }
+
+    /**
+     * Returns the keys of the {@link Book} objects on the pages of a batch search before the page
+     * with the given index. A page reloaded after being dropped only leaves these out, so it comes
+     * back with the same books it had before.
+     *
+     * @param pageIndex Int index of the page.
+     * @return {@link Set} holding the keys of the {@link Book} objects on the earlier pages.
+     */
+    private Set<String> getBookKeysBefore(int pageIndex) {
+        Set<String> bookKeys = new HashSet<>();
+        for (int earlierPageIndex = 0; earlierPageIndex < Math.min(pageIndex, pageBookKeys.size()); earlierPageIndex++) {
+            bookKeys.addAll(pageBookKeys.get(earlierPageIndex));
+        }
+        return bookKeys;
+    }
+
+    /**
+     * Returns the {@link ListMetrics} collecting rendering metrics of the {@link ListView}.
+     *
+     * @return The {@link ListMetrics} of this activity.
+     */
+    @VisibleForTesting
+    ListMetrics getListMetrics() {
+        return listMetrics;
+    }
+
+    /**
+     * Shows a dialog with the {@link ListMetrics} report, which can be shared as plain text or
+     * reset to start a new session.
+     */
+    private void showListMetricsDialog() {
+        final String report = listMetrics.getReport();
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.action_list_metrics)
+                .setMessage(report)
+                .setPositiveButton(R.string.action_share, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        Intent intent = new Intent(Intent.ACTION_SEND);
+                        intent.setType("text/plain");
+                        intent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.action_list_metrics));
+                        intent.putExtra(Intent.EXTRA_TEXT, report);
+                        startActivity(Intent.createChooser(intent, getString(R.string.action_share)));
+                    }
+                })
+                .setNeutralButton(R.string.action_reset, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        listMetrics.reset();
+                    }
+                })
+                .setNegativeButton(android.R.string.ok, null)
+                .show();
+    }
+
+    /**
+     * Shows the results in the given view. Takes constant time, since the ordering of the view
+     * has been computed in the background. The results stay in relevance order until the first
+     * ordering has been computed.
+     *
+     * @param newView int view to show. One of the view constants of {@link BookOrdering}.
+     */
+    private void setView(int newView) {
+        view = newView;
+        boolean sorted = view != BookOrdering.VIEW_RELEVANCE && orderings != null;
+        bookAdapter.setOrdering(sorted ? orderings[view] : null);
+        ListView listView = findViewById(R.id.book_list_view);
+        listView.setSelection(0);
+    }
+
+    /**
+     * Returns the id of the menu item selecting the given view.
+     *
+     * @param itemView int view selected by the menu item.
+     * @return The id of the menu item selecting the given view.
+     */
+    private int getMenuItemId(int itemView) {
+        switch (itemView) {
+            case BookOrdering.VIEW_TITLE:
+                return R.id.sort_title;
+            case BookOrdering.VIEW_FIRST_AUTHOR:
+                return R.id.sort_first_author;
+            case BookOrdering.VIEW_AUTHOR_COUNT:
+                return R.id.sort_author_count;
+            default:
+                return R.id.sort_relevance;
+        }
+    }
+
+    /**
+     * Drops the pages that are far from the given visible range and destroys their
+     * {@link BookLoader} objects so their results can be garbage collected. Then initializes a
+     * {@link BookLoader} for every dropped page in or next to the visible range.
+     *
+     * @param firstVisiblePosition Int index of the first visible row.
+     * @param lastVisiblePosition  Int index of the last visible row.
+     */
+    private void updatePageWindow(int firstVisiblePosition, int lastVisiblePosition) {
+        if (bookAdapter.getOrdering() != null) {
+            updateSortedPageWindow(firstVisiblePosition, lastVisiblePosition);
+            return;
+        }
+        LoaderManager loaderManager = LoaderManager.getInstance(ResultsActivity.this);
+        int firstVisiblePageIndex = bookAdapter.getPageIndexForPosition(firstVisiblePosition);
+        int lastVisiblePageIndex = bookAdapter.getPageIndexForPosition(lastVisiblePosition);
+
+        // Drop far away pages along with their loaders.
+        int[] droppedPageIndices = bookAdapter.trimToWindow((firstVisiblePageIndex + lastVisiblePageIndex) / 2);
+        for (int pageIndex : droppedPageIndices) {
+            loaderManager.destroyLoader(pageIndex);
+        }
+
+        // Reload dropped pages in or next to the visible range.
+        int firstPageIndex = Math.max(0, firstVisiblePageIndex - 1);
+        int lastPageIndex = Math.min(bookAdapter.getPageCount() - 1, lastVisiblePageIndex + 1);
+        for (int pageIndex = firstPageIndex; pageIndex <= lastPageIndex; pageIndex++) {
+            if (!bookAdapter.isPageResident(pageIndex) && loaderManager.getLoader(pageIndex) == null) {
+                initBookLoader(pageIndex);
+            }
+        }
+    }
+
+    /**
+     * Keeps the pages holding the visible rows, and the pages of the nearest rows within one
+     * screen of them up to {@link BookAdapter#MAX_RESIDENT_PAGES} pages. Drops the others along
+     * with their {@link BookLoader} objects. Then initializes a {@link BookLoader} for every kept
+     * page that was dropped before. Used in sorted views, where neighbouring rows may belong to
+     * any page.
+     *
+     * @param firstVisiblePosition Int index of the first visible row.
+     * @param lastVisiblePosition  Int index of the last visible row.
+     */
+    private void updateSortedPageWindow(int firstVisiblePosition, int lastVisiblePosition) {
+        LoaderManager loaderManager = LoaderManager.getInstance(ResultsActivity.this);
+        int visibleCount = lastVisiblePosition - firstVisiblePosition + 1;
+
+        // Keep the pages of the visible rows.
+        SparseBooleanArray keptPageIndices = new SparseBooleanArray();
+        for (int position = firstVisiblePosition; position <= lastVisiblePosition; position++) {
+            keptPageIndices.put(bookAdapter.getPageIndexForPosition(position), true);
+        }
+
+        // Keep the pages of the nearest rows on either side while the page budget allows.
+        for (int distance = 1; distance <= visibleCount; distance++) {
+            int[] nearbyPositions = {firstVisiblePosition - distance, lastVisiblePosition + distance};
+            for (int position : nearbyPositions) {
+                if (position >= 0 && position < bookAdapter.getCount() && keptPageIndices.size() < BookAdapter.MAX_RESIDENT_PAGES) {
+                    keptPageIndices.put(bookAdapter.getPageIndexForPosition(position), true);
+                }
+            }
         }
+
+        // Drop the other pages along with their loaders.
+        for (int pageIndex : bookAdapter.trimToPages(keptPageIndices)) {
+            loaderManager.destroyLoader(pageIndex);
+        }
+
+        // Reload dropped pages of nearby rows.
+        for (int index = 0; index < keptPageIndices.size(); index++) {
+            int pageIndex = keptPageIndices.keyAt(index);
+            if (!bookAdapter.isPageResident(pageIndex) && loaderManager.getLoader(pageIndex) == null) {
+                initBookLoader(pageIndex);
+            }
+        }
+    }
+
+    /**
+     * Initializes a {@link BookLoader} for the next page if the end of the list is within the
+     * prefetch distance of the {@link DataPolicy}, book loading is enabled, no such loader exists
+     * yet, and the device is connected to the Internet.
+     *
+     * @param lastVisiblePosition Int index of the last visible row of the {@link ListView}.
+     * @param totalItemCount      Int number of rows in the {@link ListView}, including the footer.
+     */
+    private void loadNextPageIfNeeded(int lastVisiblePosition, int totalItemCount) {
+
+        // Do nothing if the end of the list is further away than the prefetch distance.
+        if (lastVisiblePosition < totalItemCount - 1 - dataPolicy.getPrefetchDistance()) {
+            return;
+        }
+
+        // Do nothing if book loading is disabled.
+        if (!bookLoadingEnabled) {
+            return;
+        }
+
+        // Do nothing if a BookLoader for the next page has already been initialized.
+        int nextPageIndex = bookAdapter.getPageCount();
+        if (LoaderManager.getInstance(ResultsActivity.this).getLoader(nextPageIndex) != null) {
+            return;
+        }
+
+        // Do nothing while the device is offline. The next page is fetched once it reconnects.
+        if (!ConnectivityMonitor.getInstance(this).isConnected()) {
+            return;
+        }
+
+        // Initialize a new BookLoader if we don't return early.
+        initBookLoader(nextPageIndex);
+    }
+
+    /**
+     * Initializes the {@link BookLoader} for the given page, or reattaches to it if it already
+     * exists, and has it publish parsed {@link Book} objects to this activity.
+     *
+     * @param pageIndex Int index of the page. Used as the id of the {@link BookLoader}.
+     */
+    private void initBookLoader(int pageIndex) {
+        Loader<List<Book>> loader = LoaderManager.getInstance(ResultsActivity.this).initLoader(pageIndex, null, loaderCallbacks);
+        ((BookLoader) loader).setOnBooksParsedListener(onBooksParsedListener);
     }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.davidread.booklistings;
+
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import java.util.List;
+
+/**
+ * {@link RowTextPrecomputer} measures and lays out the title and authors text of {@link Book}
+ * objects on a worker thread with {@link PrecomputedTextCompat}, so that binding a row in
+ * {@link BookAdapter} only hands the finished layout to its {@link TextView} objects. The text
+ * metrics are taken from the row layout by {@link #setTextViews(TextView, TextView)}. Until then,
+ * and whenever the metrics change, rows fall back to measuring their text on the main thread.
+ */
+public class RowTextPrecomputer {
+
+    /**
+     * {@link PrecomputedTextCompat.Params} of the title text view, or null if not known yet.
+     */
+    private static volatile PrecomputedTextCompat.Params titleParams;
+
+    /**
+     * {@link PrecomputedTextCompat.Params} of the authors text view, or null if not known yet.
+     */
+    private static volatile PrecomputedTextCompat.Params authorsParams;
+
+    /**
+     * Takes the text metrics used for precomputing from the given text views of a row. Must be
+     * called from the main thread.
+     *
+     * @param titleTextView   {@link TextView} showing the title in a row.
+     * @param authorsTextView {@link TextView} showing the authors in a row.
+     */
+    public static void setTextViews(@NonNull TextView titleTextView, @NonNull TextView authorsTextView) {
+        titleParams = TextViewCompat.getTextMetricsParams(titleTextView);
+        authorsParams = TextViewCompat.getTextMetricsParams(authorsTextView);
+    }
+
+    /**
+     * Precomputes the row text of every given {@link Book} object whose text has not been
+     * precomputed with the current text metrics yet. Must be called from a worker thread. Does
+     * nothing if the text metrics are not known yet.
+     *
+     * @param books {@link List} of {@link Book} objects to precompute the row text of.
+     */
+    public static void precompute(@NonNull List<Book> books) {
+        PrecomputedTextCompat.Params currentTitleParams = titleParams;
+        PrecomputedTextCompat.Params currentAuthorsParams = authorsParams;
+        if (currentTitleParams == null || currentAuthorsParams == null) {
+            return;
+        }
+
+        for (Book book : books) {
+            if (!isPrecomputedWith(book.getRowTitle(), currentTitleParams)) {
+                book.setRowTitle(PrecomputedTextCompat.create(book.getTitle(), currentTitleParams));
+            }
+            if (!isPrecomputedWith(book.getRowAuthors(), currentAuthorsParams)) {
+                book.setRowAuthors(PrecomputedTextCompat.create(formatAuthors(book.getAuthors()), currentAuthorsParams));
+            }
+        }
+    }
+
+    /**
+     * Sets the title and authors of the given {@link Book} object on the given text views, using
+     * its precomputed row text if it was precomputed with the text metrics of the text view it is
+     * set on. Otherwise, such as after the text direction or locale of the row changed, the text is
+     * measured on the main thread. Must be called from the main thread.
+     *
+     * @param titleTextView   {@link TextView} showing the title in a row.
+     * @param authorsTextView {@link TextView} showing the authors in a row.
+     * @param book            {@link Book} object to show.
+     */
+    public static void bind(@NonNull TextView titleTextView, @NonNull TextView authorsTextView, @NonNull Book book) {
+        CharSequence rowTitle = book.getRowTitle();
+        if (isPrecomputedWith(rowTitle, TextViewCompat.getTextMetricsParams(titleTextView))) {
+            TextViewCompat.setPrecomputedText(titleTextView, (PrecomputedTextCompat) rowTitle);
+        } else {
+            titleTextView.setText(book.getTitle());
+        }
+
+        CharSequence rowAuthors = book.getRowAuthors();
+        if (isPrecomputedWith(rowAuthors, TextViewCompat.getTextMetricsParams(authorsTextView))) {
+            TextViewCompat.setPrecomputedText(authorsTextView, (PrecomputedTextCompat) rowAuthors);
+        } else {
+            authorsTextView.setText(formatAuthors(book.getAuthors()));
+        }
+    }
+
+    /**
+     * Returns a formatted string for the authors string array member variable of a {@link Book}
+     * object.
+     *
+     * @param authors {@link String} array representing the authors of a {@link Book} object.
+     * @return A formatted string for the authors string array member variable of a {@link Book}
+     * object.
+     */
+    public static String formatAuthors(String[] authors) {
+        StringBuilder formattedAuthorsString = new StringBuilder();
+        for (int index = 0; index < authors.length; index++) {
+            if (index > 0) {
+                formattedAuthorsString.append(", ");
+            }
+            formattedAuthorsString.append(authors[index]);
+        }
+        return formattedAuthorsString.toString();
+    }
+
+    /**
+     * Returns whether the given text was precomputed with the given text metrics.
+     *
+     * @param text   {@link CharSequence} to check, or null.
+     * @param params {@link PrecomputedTextCompat.Params} to check against, or null.
+     * @return Whether the given text was precomputed with the given text metrics.
+     */
+    private static boolean isPrecomputedWith(@Nullable CharSequence text, @Nullable PrecomputedTextCompat.Params params) {
+        return params != null && text instanceof PrecomputedTextCompat && ((PrecomputedTextCompat) text).getParams().equals(params);
+    }
+}
@@ -1,17 +1,26 @@
 package com.davidread.booklistings;
 
+import android.app.SearchManager;
 import android.content.Intent;
+import android.database.Cursor;
 import android.os.Bundle;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.SearchView;
+import androidx.cursoradapter.widget.CursorAdapter;
+import androidx.cursoradapter.widget.SimpleCursorAdapter;
 
 /**
  * {@link SearchActivity} is an activity class whose user interface includes a {@link SearchView} in
- * the app bar for specifying a query term for starting the {@link ResultsActivity}.
+ * the app bar for specifying a query term for starting the {@link ResultsActivity}. It is the
+ * launcher activity, so everything that is not needed to draw its first frame is deferred until
+ * that frame has been drawn.
  */
 public class SearchActivity extends AppCompatActivity {
 
@@ -27,8 +36,10 @@ public class SearchActivity extends AppCompatActivity {
     private final SearchView.OnQueryTextListener onQueryTextListener = new SearchView.OnQueryTextListener() {
 
         /**
-         * Handles queryTextSubmit event. Collapse the search view {@link MenuItem} and start the
-         * {@link ResultsActivity} for the query term on this event.
+         * Handles queryTextSubmit event. Collapse the search view {@link MenuItem}, remember the
+         * query term in the {@link RecentQueries} and {@link QuerySuggestions}, and start the
+         * {@link ResultsActivity} for the query term on this event. Each query term of a batch
+         * search is remembered on its own.
          *
          * @param query {@link String} query term specified by the user.
          * @return Whether the queryTextSubmit event was handled by this handler.
@@ -36,6 +47,11 @@ public class SearchActivity extends AppCompatActivity {
         @Override
         public boolean onQueryTextSubmit(String query) {
             searchMenuItem.collapseActionView();
+            RecentQueries recentQueries = new RecentQueries(SearchActivity.this);
+            for (String batchQuery : BatchBookLoader.parseQueries(query)) {
+                recentQueries.add(batchQuery);
+                QuerySuggestions.getInstance(SearchActivity.this).addQuery(batchQuery);
+            }
             Intent resultsIntent = new Intent(SearchActivity.this, ResultsActivity.class);
             resultsIntent.putExtra(INTENT_EXTRA_QUERY, query);
             startActivity(resultsIntent);
@@ -43,13 +59,108 @@ public class SearchActivity extends AppCompatActivity {
         }
 
         /**
-         * Handles queryTextChange events. Do nothing on this event.
+         * Handles queryTextChange events. Show the local suggestions for the query term on this
+         * event.
          *
          * @param newText {@link String} query term specified by the user.
          * @return Whether the queryTextChange event was handled by this handler.
          */
         @Override
         public boolean onQueryTextChange(String newText) {
+            suggestionsAdapter.changeCursor(QuerySuggestions.getInstance(SearchActivity.this).getSuggestionsCursor(newText));
+            return true;
+        }
+    };
+
+    /**
+     * {@link androidx.appcompat.widget.SearchView.OnSuggestionListener} defines how the
+     * {@link SearchView} handles its suggestionSelect and suggestionClick events.
+     */
+    private final SearchView.OnSuggestionListener onSuggestionListener = new SearchView.OnSuggestionListener() {
+
+        /**
+         * Handles suggestionSelect event. Do nothing on this event.
+         *
+         * @param position Int index of the selected suggestion.
+         * @return Whether the suggestionSelect event was handled by this handler.
+         */
+        @Override
+        public boolean onSuggestionSelect(int position) {
+            return false;
+        }
+
+        /**
+         * Handles suggestionClick event. Submit the clicked suggestion as the query term on this
+         * event.
+         *
+         * @param position Int index of the clicked suggestion.
+         * @return Whether the suggestionClick event was handled by this handler.
+         */
+        @Override
+        public boolean onSuggestionClick(int position) {
+            Cursor cursor = suggestionsAdapter.getCursor();
+            if (cursor == null || !cursor.moveToPosition(position)) {
+                return false;
+            }
+            String suggestion = cursor.getString(cursor.getColumnIndexOrThrow(SearchManager.SUGGEST_COLUMN_TEXT_1));
+            searchView.setQuery(suggestion, true);
+            return true;
+        }
+    };
+
+    /**
+     * {@link android.view.MenuItem.OnActionExpandListener} defines how the search view
+     * {@link MenuItem} handles its actionExpand and actionCollapse events.
+     */
+    private final MenuItem.OnActionExpandListener onActionExpandListener = new MenuItem.OnActionExpandListener() {
+
+        /**
+         * Handles actionExpand event. Set up the {@link SearchView} on this event, in case it is
+         * expanded before the deferred initialization has run.
+         *
+         * @param item {@link MenuItem} being expanded.
+         * @return Whether the item should expand.
+         */
+        @Override
+        public boolean onMenuItemActionExpand(MenuItem item) {
+            setUpSearchView();
+            return true;
+        }
+
+        /**
+         * Handles actionCollapse event. Do nothing on this event.
+         *
+         * @param item {@link MenuItem} being collapsed.
+         * @return Whether the item should collapse.
+         */
+        @Override
+        public boolean onMenuItemActionCollapse(MenuItem item) {
+            return true;
+        }
+    };
+
+    /**
+     * {@link android.view.ViewTreeObserver.OnPreDrawListener} defines how initialization is
+     * deferred until the first frame has been drawn.
+     */
+    private final ViewTreeObserver.OnPreDrawListener onFirstPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+
+        /**
+         * Handles preDraw event of the first frame. Stop listening and post the deferred
+         * initialization on this event. The post runs once the frame has been drawn.
+         *
+         * @return Whether the frame should be drawn.
+         */
+        @Override
+        public boolean onPreDraw() {
+            View decorView = getWindow().getDecorView();
+            decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+            decorView.post(new Runnable() {
+                @Override
+                public void run() {
+                    runDeferredInitialization();
+                }
+            });
             return true;
         }
     };
@@ -61,7 +172,29 @@ public class SearchActivity extends AppCompatActivity {
     private MenuItem searchMenuItem;
 
     /**
-     * Handles {@link AppCompatActivity} create event. Inflate the activity layout on this event.
+     * {@link SearchView} in the app bar. Is global so it's accessible in the
+     * {@link androidx.appcompat.widget.SearchView.OnSuggestionListener} object.
+     */
+    private SearchView searchView;
+
+    /**
+     * {@link CursorAdapter} adapting the local suggestions into the {@link SearchView} dropdown.
+     */
+    private CursorAdapter suggestionsAdapter;
+
+    /**
+     * {@link MenuItem} toggling the data saver of the {@link DataPolicy}.
+     */
+    private MenuItem dataSaverMenuItem;
+
+    /**
+     * Boolean representing whether the deferred initialization has run.
+     */
+    private boolean deferredInitializationDone;
+
+    /**
+     * Handles {@link AppCompatActivity} create event. Inflate the activity layout and wait for
+     * the first frame to run the deferred initialization on this event.
      *
      * @param savedInstanceState {@link Bundle} for the superclass constructor.
      */
@@ -69,22 +202,88 @@ public class SearchActivity extends AppCompatActivity {
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_search);
+        getWindow().getDecorView().getViewTreeObserver().addOnPreDrawListener(onFirstPreDrawListener);
     }
 
     /**
-     * Handles {@link AppCompatActivity} createOptionsMenu event. Inflate the menu layout and setup
-     * the {@link SearchView} on this event.
+     * Handles {@link AppCompatActivity} createOptionsMenu event. Inflate the menu layout on this
+     * event. The {@link SearchView} and the data saver setting are set up by the deferred
+     * initialization, unless it has already run.
      *
-     * @param menu
-     * @return
+     * @param menu {@link Menu} object in the app bar.
+     * @return Whether the menu should be displayed.
      */
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_search, menu);
         searchMenuItem = menu.findItem(R.id.search_view);
-        SearchView searchView = (SearchView) menu.findItem(R.id.search_view).getActionView();
+        searchMenuItem.setOnActionExpandListener(onActionExpandListener);
+        dataSaverMenuItem = menu.findItem(R.id.data_saver);
+        if (deferredInitializationDone) {
+            setUpMenuItems();
+        }
+        return true;
+    }
+
+    /**
+     * Handles {@link AppCompatActivity} optionsItemSelected event. Toggle the data saver of the
+     * {@link DataPolicy} when its {@link MenuItem} is clicked on this event.
+     *
+     * @param item {@link MenuItem} clicked during this event.
+     * @return Whether the optionsItemSelected event was handled by this handler.
+     */
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == R.id.data_saver) {
+            boolean dataSaverEnabled = !item.isChecked();
+            item.setChecked(dataSaverEnabled);
+            DataPolicy.setDataSaverEnabled(this, dataSaverEnabled);
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    /**
+     * Runs the initialization that is not needed to draw the first frame: sets up the menu items,
+     * schedules the {@link CacheWarmupJobService}, and creates the {@link QuerySuggestions} and
+     * {@link ConnectivityMonitor}, so neither is built when the user starts typing or searching.
+     */
+    private void runDeferredInitialization() {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        deferredInitializationDone = true;
+        if (searchMenuItem != null) {
+            setUpMenuItems();
+        }
+        CacheWarmupJobService.schedule(this);
+        QuerySuggestions.getInstance(this);
+        ConnectivityMonitor.getInstance(this);
+    }
+
+    /**
+     * Sets up the {@link SearchView} and shows the data saver setting in its {@link MenuItem}.
+     */
+    private void setUpMenuItems() {
+        setUpSearchView();
+        dataSaverMenuItem.setChecked(DataPolicy.isDataSaverEnabled(this));
+    }
+
+    /**
+     * Sets up the {@link SearchView} along with its suggestions adapter, unless it is already set
+     * up.
+     */
+    private void setUpSearchView() {
+        if (searchView != null) {
+            return;
+        }
+        searchView = (SearchView) searchMenuItem.getActionView();
+        suggestionsAdapter = new SimpleCursorAdapter(this, android.R.layout.simple_list_item_1, null,
+                new String[]{SearchManager.SUGGEST_COLUMN_TEXT_1}, new int[]{android.R.id.text1}, 0);
+        searchView.setSuggestionsAdapter(suggestionsAdapter);
+        searchView.setOnSuggestionListener(onSuggestionListener);
         searchView.setOnQueryTextListener(onQueryTextListener);
         searchView.setMaxWidth(Integer.MAX_VALUE);
-        return true;
+        searchView.setQueryHint(getString(R.string.search_hint));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,393 @@
+package com.davidread.booklistings;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * {@link SuggestionTrie} is a compact prefix trie of suggestion terms. Nodes are stored in
+ * parallel int arrays instead of node objects, and every node caches the ids of the
+ * {@link #MAX_SUGGESTIONS} best ranked terms below it, so a lookup only walks the prefix and copies
+ * the cached ids without allocating.
+ * <p>
+ * Terms are ranked by frecency. Every time a term is added, its score grows by its weight
+ * multiplied by a boost that doubles every {@link #HALF_LIFE_TICKS} ticks of the clock, which the
+ * owner advances with {@link #tick()} once per use, such as a submitted query or a page of results,
+ * rather than once per term. Scores never decrease, which keeps the cached rankings valid, while
+ * older additions count for less and less relative to newer ones. Terms are matched
+ * case-insensitively.
+ * <p>
+ * Once a term does not fit in {@link #MAX_NODES} nodes, the trie is rebuilt from its best ranked
+ * terms, filling half of the nodes, so the least recently and frequently used terms are evicted
+ * and new terms keep being added.
+ */
+public class SuggestionTrie {
+
+    /**
+     * int specifying how many of the best ranked terms are cached per node and returned at most by
+     * {@link #lookup(CharSequence, String[])}.
+     */
+    public static final int MAX_SUGGESTIONS = 5;
+
+    /**
+     * int specifying how many nodes the trie may hold. Once full, it is rebuilt with its best
+     * ranked terms.
+     */
+    static final int MAX_NODES = 32768;
+
+    /**
+     * int specifying how many characters of a term are indexed.
+     */
+    private static final int MAX_TERM_LENGTH = 48;
+
+    /**
+     * int specifying how many ticks it takes for the boost given to a new addition to double.
+     */
+    static final int HALF_LIFE_TICKS = 16;
+
+    /**
+     * double specifying the boost above which all scores are scaled back down.
+     */
+    private static final double MAX_BOOST = 1e100;
+
+    /**
+     * int specifying the initial capacity of the node and term arrays.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * char array holding the label of each node.
+     */
+    private char[] nodeLabels;
+
+    /**
+     * int array holding the index of the first child of each node, or -1.
+     */
+    private int[] nodeFirstChildren;
+
+    /**
+     * int array holding the index of the next sibling of each node, or -1.
+     */
+    private int[] nodeNextSiblings;
+
+    /**
+     * int array holding the id of the term ending at each node, or -1.
+     */
+    private int[] nodeTerms;
+
+    /**
+     * int array holding, for each node, the ids of the best ranked terms below it in descending
+     * score order. Slot {@code node * MAX_SUGGESTIONS + rank} is -1 if empty.
+     */
+    private int[] nodeTopTerms;
+
+    /**
+     * int representing the number of nodes in use. Node 0 is the root.
+     */
+    private int nodeCount;
+
+    /**
+     * {@link String} array holding the display text of each term.
+     */
+    private String[] terms;
+
+    /**
+     * double array holding the score of each term.
+     */
+    private double[] termScores;
+
+    /**
+     * int representing the number of terms in use.
+     */
+    private int termCount;
+
+    /**
+     * double representing the boost given to the next addition.
+     */
+    private double boost;
+
+    /**
+     * int representing the number of ticks since the boost last doubled.
+     */
+    private int ticks;
+
+    /**
+     * Constructs a new, empty {@link SuggestionTrie} object.
+     */
+    public SuggestionTrie() {
+        clear();
+    }
+
+    /**
+     * Removes every term from the trie.
+     */
+    public void clear() {
+        nodeLabels = new char[INITIAL_CAPACITY];
+        nodeFirstChildren = new int[INITIAL_CAPACITY];
+        nodeNextSiblings = new int[INITIAL_CAPACITY];
+        nodeTerms = new int[INITIAL_CAPACITY];
+        nodeTopTerms = new int[INITIAL_CAPACITY * MAX_SUGGESTIONS];
+        nodeCount = 0;
+        terms = new String[INITIAL_CAPACITY];
+        termScores = new double[INITIAL_CAPACITY];
+        termCount = 0;
+        boost = 1;
+        ticks = 0;
+        newNode('\0');
+    }
+
+    /**
+     * Returns the number of terms in the trie.
+     *
+     * @return The number of terms in the trie.
+     */
+    public int size() {
+        return termCount;
+    }
+
+    /**
+     * Adds a use of the given term to the trie. The first addition of a term fixes its display
+     * text. Later additions, in any letter case, raise its score. If the term does not fit, the
+     * lowest ranked terms are evicted first.
+     *
+     * @param term   {@link String} term to add.
+     * @param weight double weight of this use. Higher weights rank the term higher.
+     */
+    public void add(String term, double weight) {
+        String trimmedTerm = term.trim();
+        int length = Math.min(trimmedTerm.length(), MAX_TERM_LENGTH);
+        if (length == 0 || weight <= 0) {
+            return;
+        }
+        String indexedTerm = trimmedTerm.substring(0, length);
+        if (!insert(indexedTerm, weight * boost, MAX_NODES)) {
+            evict();
+            insert(indexedTerm, weight * boost, MAX_NODES);
+        }
+    }
+
+    /**
+     * Advances the clock by one tick. Every {@link #HALF_LIFE_TICKS} ticks, the boost given to
+     * new additions doubles.
+     */
+    public void tick() {
+        ticks++;
+        if (ticks < HALF_LIFE_TICKS) {
+            return;
+        }
+        ticks = 0;
+        boost *= 2;
+        if (boost > MAX_BOOST) {
+            for (int termId = 0; termId < termCount; termId++) {
+                termScores[termId] /= boost;
+            }
+            boost = 1;
+        }
+    }
+
+    /**
+     * Copies the best ranked terms starting with the given prefix into the given array, best
+     * first. Does not allocate.
+     *
+     * @param prefix      {@link CharSequence} prefix to look up.
+     * @param suggestions {@link String} array receiving the terms. At most its length, and at most
+     *                    {@link #MAX_SUGGESTIONS}, terms are copied.
+     * @return The number of terms copied.
+     */
+    public int lookup(CharSequence prefix, String[] suggestions) {
+
+        // Walk down the trie along the prefix, ignoring surrounding whitespace.
+        int start = 0;
+        int end = prefix.length();
+        while (start < end && Character.isWhitespace(prefix.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(prefix.charAt(end - 1))) {
+            end--;
+        }
+        if (end - start > MAX_TERM_LENGTH) {
+            return 0;
+        }
+        int node = 0;
+        for (int index = start; index < end && node >= 0; index++) {
+            node = findChild(node, Character.toLowerCase(prefix.charAt(index)));
+        }
+        if (node < 0) {
+            return 0;
+        }
+
+        // Copy the cached ranking of the node.
+        int count = 0;
+        int base = node * MAX_SUGGESTIONS;
+        int limit = Math.min(suggestions.length, MAX_SUGGESTIONS);
+        while (count < limit && nodeTopTerms[base + count] >= 0) {
+            suggestions[count] = terms[nodeTopTerms[base + count]];
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the index of the child of the given node with the given label, or -1.
+     *
+     * @param node  int index of the parent node.
+     * @param label char label of the child.
+     * @return The index of the child with the given label, or -1.
+     */
+    private int findChild(int node, char label) {
+        int child = nodeFirstChildren[node];
+        while (child >= 0 && nodeLabels[child] != label) {
+            child = nodeNextSiblings[child];
+        }
+        return child;
+    }
+
+    /**
+     * Appends a new node with the given label and returns its index.
+     *
+     * @param label char label of the node.
+     * @return The index of the new node.
+     */
+    private int newNode(char label) {
+        if (nodeCount == nodeLabels.length) {
+            int capacity = nodeLabels.length * 2;
+            nodeLabels = Arrays.copyOf(nodeLabels, capacity);
+            nodeFirstChildren = Arrays.copyOf(nodeFirstChildren, capacity);
+            nodeNextSiblings = Arrays.copyOf(nodeNextSiblings, capacity);
+            nodeTerms = Arrays.copyOf(nodeTerms, capacity);
+            nodeTopTerms = Arrays.copyOf(nodeTopTerms, capacity * MAX_SUGGESTIONS);
+        }
+        int node = nodeCount++;
+        nodeLabels[node] = label;
+        nodeFirstChildren[node] = -1;
+        nodeNextSiblings[node] = -1;
+        nodeTerms[node] = -1;
+        Arrays.fill(nodeTopTerms, node * MAX_SUGGESTIONS, (node + 1) * MAX_SUGGESTIONS, -1);
+        return node;
+    }
+
+    /**
+     * Appends a new term with the given display text and a score of zero and returns its id.
+     *
+     * @param term {@link String} display text of the term.
+     * @return The id of the new term.
+     */
+    private int newTerm(String term) {
+        if (termCount == terms.length) {
+            int capacity = terms.length * 2;
+            terms = Arrays.copyOf(terms, capacity);
+            termScores = Arrays.copyOf(termScores, capacity);
+        }
+        int termId = termCount++;
+        terms[termId] = term;
+        termScores[termId] = 0;
+        return termId;
+    }
+
+    /**
+     * Raises the score of the given term by the given amount, creating its nodes if needed, as
+     * long as the trie holds no more than the given number of nodes afterwards.
+     *
+     * @param term     {@link String} display text of the term, trimmed and shortened.
+     * @param score    double amount to raise the score by.
+     * @param maxNodes int specifying how many nodes the trie may hold.
+     * @return Whether the term fits in the trie.
+     */
+    private boolean insert(String term, double score, int maxNodes) {
+
+        // Walk down the trie, creating missing nodes. Remember the path to update rankings.
+        int length = term.length();
+        int[] path = new int[length + 1];
+        int node = 0;
+        path[0] = node;
+        for (int index = 0; index < length; index++) {
+            char label = Character.toLowerCase(term.charAt(index));
+            int child = findChild(node, label);
+            if (child < 0) {
+                if (nodeCount + (length - index) > maxNodes) {
+                    return false;
+                }
+                child = newNode(label);
+                nodeNextSiblings[child] = nodeFirstChildren[node];
+                nodeFirstChildren[node] = child;
+            }
+            node = child;
+            path[index + 1] = node;
+        }
+
+        // Find or create the term ending at the last node and raise its score.
+        int termId = nodeTerms[node];
+        if (termId < 0) {
+            termId = newTerm(term);
+            nodeTerms[node] = termId;
+        }
+        termScores[termId] += score;
+
+        // Update the cached rankings of every node on the path.
+        for (int pathNode : path) {
+            updateTopTerms(pathNode, termId);
+        }
+        return true;
+    }
+
+    /**
+     * Rebuilds the trie from its best ranked terms, keeping their scores, until half of
+     * {@link #MAX_NODES} is in use. The other terms are evicted.
+     */
+    private void evict() {
+
+        // Order the term ids by descending score.
+        Integer[] termIds = new Integer[termCount];
+        for (int termId = 0; termId < termCount; termId++) {
+            termIds[termId] = termId;
+        }
+        final double[] scores = termScores;
+        Arrays.sort(termIds, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return Double.compare(scores[second], scores[first]);
+            }
+        });
+
+        // Insert the best ranked terms into an empty trie with the same clock.
+        String[] oldTerms = terms;
+        double oldBoost = boost;
+        int oldTicks = ticks;
+        clear();
+        boost = oldBoost;
+        ticks = oldTicks;
+        for (Integer termId : termIds) {
+            if (!insert(oldTerms[termId], scores[termId], MAX_NODES / 2)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Moves the given term to its place in the cached ranking of the given node. Since scores
+     * never decrease, the term can only move up.
+     *
+     * @param node   int index of the node.
+     * @param termId int id of the term whose score was raised.
+     */
+    private void updateTopTerms(int node, int termId) {
+        int base = node * MAX_SUGGESTIONS;
+        double score = termScores[termId];
+
+        // Find the current slot of the term, or the last slot if it is not ranked.
+        int slot = 0;
+        while (slot < MAX_SUGGESTIONS - 1 && nodeTopTerms[base + slot] >= 0 && nodeTopTerms[base + slot] != termId) {
+            slot++;
+        }
+        int current = nodeTopTerms[base + slot];
+        if (current != termId && current >= 0 && termScores[current] >= score) {
+            return;
+        }
+
+        // Shift lower ranked terms down until the term's place is found.
+        while (slot > 0 && termScores[nodeTopTerms[base + slot - 1]] < score) {
+            nodeTopTerms[base + slot] = nodeTopTerms[base + slot - 1];
+            slot--;
+        }
+        nodeTopTerms[base + slot] = termId;
+    }
+}
@@ -0,0 +1,117 @@
+package com.davidread.booklistings;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the prefix lookup, ranking and eviction of {@link SuggestionTrie}.
+ */
+public class SuggestionTrieTest {
+
+    /**
+     * {@link String} appended to terms so each of them takes up many nodes.
+     */
+    private static final String FILLER = " abcdefghijklmnopqrstuvwxyz0123456789";
+
+    /**
+     * Lookups match the prefix case-insensitively, ignore surrounding whitespace, and return the
+     * display text of the first addition.
+     */
+    @Test
+    public void looksUpPrefixCaseInsensitively() {
+        SuggestionTrie suggestionTrie = new SuggestionTrie();
+        suggestionTrie.add("Android Programming", 3);
+        suggestionTrie.add("android basics", 1);
+        suggestionTrie.add("ANDROID BASICS", 1);
+        suggestionTrie.add("Kotlin", 1);
+        String[] suggestions = new String[SuggestionTrie.MAX_SUGGESTIONS];
+
+        assertEquals(2, suggestionTrie.lookup("AND", suggestions));
+        assertEquals("Android Programming", suggestions[0]);
+        assertEquals("android basics", suggestions[1]);
+        assertEquals(1, suggestionTrie.lookup("  kot ", suggestions));
+        assertEquals("Kotlin", suggestions[0]);
+        assertEquals(0, suggestionTrie.lookup("swift", suggestions));
+        assertEquals(3, suggestionTrie.size());
+    }
+
+    /**
+     * Lookups return at most {@link SuggestionTrie#MAX_SUGGESTIONS} terms, best ranked first,
+     * and at most as many terms as the array holds.
+     */
+    @Test
+    public void returnsBestRankedTerms() {
+        SuggestionTrie suggestionTrie = new SuggestionTrie();
+        for (int weight = 1; weight <= 2 * SuggestionTrie.MAX_SUGGESTIONS; weight++) {
+            suggestionTrie.add("book " + weight, weight);
+        }
+        String[] suggestions = new String[SuggestionTrie.MAX_SUGGESTIONS];
+
+        assertEquals(SuggestionTrie.MAX_SUGGESTIONS, suggestionTrie.lookup("book", suggestions));
+        for (int rank = 0; rank < SuggestionTrie.MAX_SUGGESTIONS; rank++) {
+            assertEquals("book " + (2 * SuggestionTrie.MAX_SUGGESTIONS - rank), suggestions[rank]);
+        }
+        assertEquals(2, suggestionTrie.lookup("book", new String[2]));
+    }
+
+    /**
+     * A later use outranks an earlier use of the same weight once the clock has advanced.
+     */
+    @Test
+    public void ranksRecentTermsHigher() {
+        SuggestionTrie suggestionTrie = new SuggestionTrie();
+        suggestionTrie.add("java", 1);
+        suggestionTrie.add("java", 1);
+        for (int tick = 0; tick < 2 * SuggestionTrie.HALF_LIFE_TICKS; tick++) {
+            suggestionTrie.tick();
+        }
+        suggestionTrie.add("javascript", 1);
+        String[] suggestions = new String[SuggestionTrie.MAX_SUGGESTIONS];
+
+        assertEquals(2, suggestionTrie.lookup("jav", suggestions));
+        assertEquals("javascript", suggestions[0]);
+        assertEquals("java", suggestions[1]);
+    }
+
+    /**
+     * A heavier query term keeps outranking a page of lighter book terms added in one tick.
+     */
+    @Test
+    public void keepsQueriesAboveAPageOfBookTerms() {
+        SuggestionTrie suggestionTrie = new SuggestionTrie();
+        suggestionTrie.add("android", 4);
+        suggestionTrie.tick();
+        for (int index = 0; index < 200; index++) {
+            suggestionTrie.add("android book " + index, 1);
+        }
+        suggestionTrie.tick();
+        String[] suggestions = new String[SuggestionTrie.MAX_SUGGESTIONS];
+
+        assertEquals(SuggestionTrie.MAX_SUGGESTIONS, suggestionTrie.lookup("andr", suggestions));
+        assertEquals("android", suggestions[0]);
+    }
+
+    /**
+     * Once the trie is full, the lowest ranked terms are evicted so new terms are still added
+     * and well ranked terms are kept.
+     */
+    @Test
+    public void evictsLowestRankedTermsWhenFull() {
+        SuggestionTrie suggestionTrie = new SuggestionTrie();
+        suggestionTrie.add("android", 1000);
+        int termCount = 2 * SuggestionTrie.MAX_NODES / FILLER.length();
+        for (int index = 0; index < termCount; index++) {
+            suggestionTrie.add(String.format("%05d", index) + FILLER, 1);
+        }
+        suggestionTrie.add("zebra", 4);
+        String[] suggestions = new String[SuggestionTrie.MAX_SUGGESTIONS];
+
+        assertEquals(1, suggestionTrie.lookup("zeb", suggestions));
+        assertEquals("zebra", suggestions[0]);
+        assertEquals(1, suggestionTrie.lookup("andr", suggestions));
+        assertEquals("android", suggestions[0]);
+        assertTrue(suggestionTrie.size() < termCount);
+    }
+}
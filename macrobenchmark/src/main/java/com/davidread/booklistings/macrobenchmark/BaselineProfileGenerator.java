@@ -0,0 +1,53 @@
+package com.davidread.booklistings.macrobenchmark;
+
+import androidx.annotation.OptIn;
+import androidx.benchmark.macro.ExperimentalBaselineProfilesApi;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+import kotlin.jvm.functions.Function1;
+
+/**
+ * Generates the baseline profile of the app by running the {@link SearchJourney}, which covers
+ * the startup of {@code SearchActivity} and the first results of {@code ResultsActivity},
+ * {@code BookLoader} and {@code BookAdapter}. Run it on a rooted device or an emulator without
+ * Google Play on API level 28+ with:
+ * <pre>
+ * ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest \
+ *     -Pandroid.testInstrumentationRunnerArguments.class=com.davidread.booklistings.macrobenchmark.BaselineProfileGenerator
+ * </pre>
+ * and copy the generated profile from the test output to {@code app/src/main/baseline-prof.txt}.
+ */
+@OptIn(markerClass = ExperimentalBaselineProfilesApi.class)
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    /**
+     * {@link BaselineProfileRule} collecting the profile.
+     */
+    @Rule
+    public final BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    /**
+     * Collects the profile of the {@link SearchJourney}.
+     */
+    @Test
+    public void generate() {
+        baselineProfileRule.collectBaselineProfile(SearchJourney.PACKAGE_NAME, Collections.<String>emptyList(), new Function1<MacrobenchmarkScope, Unit>() {
+            @Override
+            public Unit invoke(MacrobenchmarkScope scope) {
+                SearchJourney.launch(scope);
+                SearchJourney.searchAndScroll(scope);
+                return Unit.INSTANCE;
+            }
+        });
+    }
+}
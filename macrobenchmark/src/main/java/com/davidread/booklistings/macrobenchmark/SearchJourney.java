@@ -0,0 +1,73 @@
+package com.davidread.booklistings.macrobenchmark;
+
+import androidx.annotation.NonNull;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+/**
+ * {@link SearchJourney} drives the app through its main journey with UI Automator: launch the
+ * search screen, search for a query term, wait for the results and scroll through them. It is
+ * run by the {@link BaselineProfileGenerator}, and its package name is measured by the
+ * {@link StartupBenchmark}.
+ */
+public class SearchJourney {
+
+    /**
+     * {@link String} package name of the app under test.
+     */
+    public static final String PACKAGE_NAME = "com.davidread.booklistings";
+
+    /**
+     * {@link String} query term searched for.
+     */
+    private static final String QUERY = "android";
+
+    /**
+     * long specifying how many milliseconds to wait for a view to show up.
+     */
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    /**
+     * int specifying how many times the results are flung down.
+     */
+    private static final int FLING_COUNT = 3;
+
+    /**
+     * Launches the search screen from the home screen and waits for its first frame.
+     *
+     * @param scope {@link MacrobenchmarkScope} controlling the app.
+     */
+    public static void launch(@NonNull MacrobenchmarkScope scope) {
+        scope.pressHome();
+        scope.startActivityAndWait();
+    }
+
+    /**
+     * Searches for the query term from the search screen, waits for the first results and scrolls
+     * through them.
+     *
+     * @param scope {@link MacrobenchmarkScope} controlling the app.
+     */
+    public static void searchAndScroll(@NonNull MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+
+        // Expand the SearchView and submit the query term.
+        device.wait(Until.findObject(By.res(PACKAGE_NAME, "search_view")), TIMEOUT_MILLIS).click();
+        UiObject2 searchText = device.wait(Until.findObject(By.res(PACKAGE_NAME, "search_src_text")), TIMEOUT_MILLIS);
+        searchText.setText(QUERY);
+        device.pressEnter();
+
+        // Wait for the first rows and fling through the results.
+        UiObject2 bookList = device.wait(Until.findObject(By.res(PACKAGE_NAME, "book_list_view")), TIMEOUT_MILLIS);
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "title_text_view")), TIMEOUT_MILLIS);
+        bookList.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int fling = 0; fling < FLING_COUNT; fling++) {
+            bookList.fling(Direction.DOWN);
+            device.waitForIdle();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.davidread.booklistings.macrobenchmark;
+
+import androidx.annotation.NonNull;
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+import kotlin.jvm.functions.Function1;
+
+/**
+ * Measures the cold, warm and hot start times of {@code SearchActivity}. Every start mode is
+ * measured twice: without any ahead-of-time compilation, which is the recorded baseline, and
+ * compiled with the baseline profile, which is how the app starts once installed. Compare the
+ * {@code timeToInitialDisplayMs} of both in the benchmark output. Run it with:
+ * <pre>
+ * ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest \
+ *     -Pandroid.testInstrumentationRunnerArguments.class=com.davidread.booklistings.macrobenchmark.StartupBenchmark
+ * </pre>
+ */
+@RunWith(Parameterized.class)
+public class StartupBenchmark {
+
+    /**
+     * int specifying how many times every start is measured.
+     */
+    private static final int ITERATIONS = 10;
+
+    /**
+     * {@link MacrobenchmarkRule} measuring the starts.
+     */
+    @Rule
+    public final MacrobenchmarkRule macrobenchmarkRule = new MacrobenchmarkRule();
+
+    /**
+     * {@link StartupMode} measured by this run.
+     */
+    private final StartupMode startupMode;
+
+    /**
+     * {@link CompilationMode} the app is compiled with for this run.
+     */
+    private final CompilationMode compilationMode;
+
+    /**
+     * Constructs a new {@link StartupBenchmark} object.
+     *
+     * @param startupMode     {@link StartupMode} measured by this run.
+     * @param compilationMode {@link CompilationMode} the app is compiled with for this run.
+     */
+    public StartupBenchmark(@NonNull StartupMode startupMode, @NonNull CompilationMode compilationMode) {
+        this.startupMode = startupMode;
+        this.compilationMode = compilationMode;
+    }
+
+    /**
+     * Returns every combination of start mode and compilation mode to measure.
+     *
+     * @return {@link List} of the constructor arguments of every run.
+     */
+    @Parameterized.Parameters(name = "{0} {1}")
+    public static List<Object[]> parameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        for (StartupMode startupMode : new StartupMode[]{StartupMode.COLD, StartupMode.WARM, StartupMode.HOT}) {
+            parameters.add(new Object[]{startupMode, new CompilationMode.None()});
+            parameters.add(new Object[]{startupMode, new CompilationMode.Partial(BaselineProfileMode.Require, 0)});
+        }
+        return parameters;
+    }
+
+    /**
+     * Measures the start of {@code SearchActivity} from the home screen.
+     */
+    @Test
+    public void startup() {
+        macrobenchmarkRule.measureRepeated(
+                SearchJourney.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                startupMode,
+                ITERATIONS,
+                new Function1<MacrobenchmarkScope, Unit>() {
+                    @Override
+                    public Unit invoke(MacrobenchmarkScope scope) {
+                        scope.pressHome();
+                        return Unit.INSTANCE;
+                    }
+                },
+                new Function1<MacrobenchmarkScope, Unit>() {
+                    @Override
+                    public Unit invoke(MacrobenchmarkScope scope) {
+                        scope.startActivityAndWait();
+                        return Unit.INSTANCE;
+                    }
+                });
+    }
+}